@@ -0,0 +1,701 @@
+/*
+ * Copyright (C) 2011-2014 Bekwam, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package routines;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput benchmarks for the BRules routines
+ * 
+ * Run with -prof gc to report allocation rates alongside throughput
+ * 
+ * @author Carl2
+ * @since 1.6.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BRulesBenchmark {
+
+	/**
+	 * Walks a fixed array of inputs so each invocation sees the next sample
+	 */
+	static abstract class Cursor {
+		int i = 0;
+		
+		int next() {
+			i = (i + 1) & (BenchmarkData.SAMPLES - 1);
+			return i;
+		}
+	}
+	
+	@State(Scope.Thread)
+	public static class Phones extends Cursor {
+		@Param({"valid", "invalid", "mixed"})
+		public String mix;
+		String[] phones;
+		
+		@Setup
+		public void setup() {
+			phones = BenchmarkData.phones(mix);
+		}
+	}
+	
+	@State(Scope.Thread)
+	public static class MemoPhones extends Phones {
+		
+		@Setup
+		public void memo() {
+			BRules.Memo.setMaxEntries(BRules.Memo.Routine.IS_PHONE_NUM, 1000);
+		}
+		
+		@TearDown
+		public void unmemo() {
+			BRules.Memo.setMaxEntries(BRules.Memo.Routine.IS_PHONE_NUM, 0);
+		}
+	}
+	
+	@State(Scope.Thread)
+	public static class Emails extends Cursor {
+		@Param({"valid", "invalid", "mixed"})
+		public String mix;
+		String[] emails;
+		
+		@Setup
+		public void setup() {
+			emails = BenchmarkData.emails(mix);
+		}
+	}
+	
+	@State(Scope.Thread)
+	public static class Ids extends Cursor {
+		String[] ids;
+		
+		@Setup
+		public void setup() {
+			ids = BenchmarkData.ids();
+		}
+	}
+	
+	@State(Scope.Thread)
+	public static class Texts extends Cursor {
+		@Param({"ascii", "nonascii"})
+		public String mix;
+		String[] texts;
+		
+		@Setup
+		public void setup() {
+			texts = BenchmarkData.texts(mix, 8);
+		}
+	}
+	
+	@State(Scope.Thread)
+	public static class Blanks extends Cursor {
+		@Param({"text", "padded", "blank"})
+		public String mix;
+		String[] blanks;
+		
+		@Setup
+		public void setup() {
+			blanks = BenchmarkData.blanks(mix);
+		}
+	}
+	
+	@State(Scope.Thread)
+	public static class Xml {
+		@Param({"1", "1000"})
+		public int records;
+		String xml;
+		String malformed;
+		
+		@Setup
+		public void setup() {
+			xml = BenchmarkData.xml(records);
+			malformed = xml.substring(0, xml.length() - 3);
+		}
+	}
+	
+	@State(Scope.Thread)
+	public static class Lists {
+		@Param({"10", "1000"})
+		public int size;
+		List<String> list;
+		Object[] array;
+		
+		@Setup
+		public void setup() {
+			list = BenchmarkData.list(size);
+			array = list.toArray();
+		}
+	}
+	
+	@State(Scope.Thread)
+	public static class Fields extends Cursor {
+		Object[][] rows;
+		
+		@Setup
+		public void setup() {
+			Random r = new Random(19);
+			rows = new Object[BenchmarkData.SAMPLES][];
+			for( int i=0; i<rows.length; i++ ) {
+				rows[i] = new Object[5];
+				for( int j=0; j<5; j++ ) {
+					int k = r.nextInt(3);
+					rows[i][j] = (k == 0) ? null : ((k == 1) ? "" : "value" + j);
+				}
+			}
+		}
+	}
+	
+	@State(Scope.Thread)
+	public static class Keys {
+		final static int DISTINCT = 1 << 20;
+		int i = 0;
+		BRules.Dedup bloom;
+		BRules.Dedup exact;
+		HashSet<String> set;
+		String[] names;
+		
+		@Setup
+		public void setup() {
+			bloom = BRules.dedup(DISTINCT, 0.01);
+			exact = BRules.dedupExact(DISTINCT);
+			set = new HashSet<String>();
+			names = BenchmarkData.texts("ascii", 2);
+		}
+		
+		int next() {
+			i = (i + 1) & (DISTINCT - 1);
+			return i;
+		}
+	}
+	
+	@State(Scope.Benchmark)
+	public static class Reference {
+		@Param({"100", "100000"})
+		public int size;
+		BRules.LookupTable table;
+		HashSet<String> set;
+		String[] probes;
+		
+		@Setup
+		public void setup() {
+			List<String> codes = new ArrayList<String>();
+			for( int i=0; i<size; i++ ) {
+				codes.add("P" + (i * 2));
+			}
+			table = new BRules.LookupTable(codes);
+			set = new HashSet<String>(codes);
+			Random r = new Random(53);
+			probes = new String[BenchmarkData.SAMPLES];
+			for( int i=0; i<probes.length; i++ ) {
+				probes[i] = "P" + r.nextInt(size * 2);
+			}
+		}
+	}
+	
+	@State(Scope.Thread)
+	public static class Probes extends Cursor {
+	}
+	
+	@State(Scope.Thread)
+	public static class Numbers extends Cursor {
+		String[] zeroPadded;
+		int[] ints;
+		long[] longs;
+		
+		@Setup
+		public void setup() {
+			zeroPadded = BenchmarkData.zeroPaddedNumbers();
+			Random r = new Random(23);
+			ints = new int[BenchmarkData.SAMPLES];
+			longs = new long[BenchmarkData.SAMPLES];
+			for( int i=0; i<ints.length; i++ ) {
+				ints[i] = r.nextInt(1000000);
+				longs[i] = Math.abs(r.nextLong()) % 10000000000L;
+			}
+		}
+	}
+	
+	@State(Scope.Thread)
+	public static class Dates extends Cursor {
+		Date[] birthDates;
+		Date asOfDate;
+		String[] dateStrings;
+		
+		@Setup
+		public void setup() {
+			birthDates = BenchmarkData.birthDates();
+			asOfDate = new Date();
+			dateStrings = BenchmarkData.dateStrings();
+		}
+	}
+	
+	@State(Scope.Thread)
+	public static class Records extends Cursor {
+		BRules.RecordLayout layout;
+		Object[][] rows;
+		String[] csvLines;
+		String[] fixedLines;
+		String[] dest;
+		
+		@Setup
+		public void setup() {
+			layout = BRules.recordLayout()
+				.field("id", 8, BRules.Align.RIGHT, '0')
+				.field("name", 24)
+				.field("qty", 6, BRules.Align.RIGHT, ' ')
+				.field("note", 24)
+				.truncate(true);
+			rows = BenchmarkData.records();
+			csvLines = new String[rows.length];
+			fixedLines = new String[rows.length];
+			for( int i=0; i<rows.length; i++ ) {
+				csvLines[i] = BRules.csv(rows[i]);
+				fixedLines[i] = layout.format(rows[i]);
+			}
+			dest = new String[layout.size()];
+		}
+	}
+	
+	@State(Scope.Thread)
+	public static class Tables {
+		@Param({"10", "1000"})
+		public int size;
+		Object[] headers = { "id", "name", "qty", "note" };
+		Object[][] rows;
+		
+		@Setup
+		public void setup() {
+			Object[][] records = BenchmarkData.records();
+			rows = new Object[size][];
+			for( int i=0; i<size; i++ ) {
+				rows[i] = records[i & (BenchmarkData.SAMPLES - 1)];
+			}
+		}
+	}
+	
+	@State(Scope.Thread)
+	public static class Rows extends Cursor {
+		BRules.CompiledRuleSet ruleSet;
+		Object[][] rows;
+		
+		@Setup
+		public void setup() {
+			ruleSet = BRules.ruleSet("phone", "name", "fax", "note")
+				.rule("isPhoneNum", "phone", "US")
+				.rule("notBlank", "name")
+				.rule("okChars", "name", "Cp1252")
+				.rule("okChars", "note", "Cp1252")
+				.rule("xor", "phone,fax")
+				.compile();
+			String[] phones = BenchmarkData.phones("mixed");
+			String[] names = BenchmarkData.texts("ascii", 2);
+			String[] notes = BenchmarkData.texts("nonascii", 8);
+			rows = new Object[BenchmarkData.SAMPLES][];
+			for( int i=0; i<rows.length; i++ ) {
+				rows[i] = new Object[] { phones[i], names[i], null, notes[i] };
+			}
+		}
+	}
+	
+	@Benchmark
+	public boolean isPhoneNum(Phones s) {
+		return BRules.isPhoneNum("US", s.phones[s.next()]);
+	}
+
+	@Benchmark
+	public boolean isPhoneNumLoose(Phones s) {
+		return BRules.isPhoneNum("US", s.phones[s.next()], true);
+	}
+	
+	@Benchmark
+	public boolean isPhoneNumMemo(MemoPhones s) {
+		return BRules.isPhoneNum("US", s.phones[s.next()]);
+	}
+	
+	@Benchmark
+	public boolean isEmail(Emails s) {
+		return BRules.isEmail(s.emails[s.next()]);
+	}
+
+	@Benchmark
+	public boolean isEmailLoose(Emails s) {
+		return BRules.isEmail(s.emails[s.next()], true);
+	}
+	
+	@Benchmark
+	public boolean isPostalCode(Ids s) {
+		return BRules.isPostalCode("US", s.ids[s.next()]);
+	}
+	
+	@Benchmark
+	public boolean isIBAN(Ids s) {
+		return BRules.isIBAN(s.ids[s.next()]);
+	}
+	
+	@Benchmark
+	public boolean isCreditCard(Ids s) {
+		return BRules.isCreditCard(s.ids[s.next()]);
+	}
+	
+	@Benchmark
+	public boolean isSSN(Ids s) {
+		return BRules.isSSN(s.ids[s.next()]);
+	}
+	
+	@Benchmark
+	public boolean all(Fields s) {
+		return BRules.all(s.rows[s.next()]);
+	}
+	
+	@Benchmark
+	public boolean xor(Fields s) {
+		return BRules.xor(s.rows[s.next()]);
+	}
+	
+	@Benchmark
+	public boolean atLeast(Fields s) {
+		return BRules.atLeast(2, s.rows[s.next()]);
+	}
+	
+	@Benchmark
+	public boolean exactly(Fields s) {
+		return BRules.exactly(2, s.rows[s.next()]);
+	}
+	
+	@Benchmark
+	public boolean none(Fields s) {
+		return BRules.none(s.rows[s.next()]);
+	}
+	
+	@Benchmark
+	public long setMask(Fields s) {
+		return BRules.setMask(s.rows[s.next()]);
+	}
+	
+	@Benchmark
+	public boolean isBlank(Blanks s) {
+		return BRules.isBlank(s.blanks[s.next()]);
+	}
+	
+	/**
+	 * Baseline for isBlank; the commons-lang implementation it replaced
+	 */
+	@Benchmark
+	public boolean isBlankCommonsLang(Blanks s) {
+		return StringUtils.isBlank(s.blanks[s.next()]);
+	}
+	
+	@Benchmark
+	public boolean matches(Emails s) {
+		return BRules.matches(s.emails[s.next()], "[\\w.+'-]+@[\\w-]+(\\.[\\w-]+)+");
+	}
+	
+	/**
+	 * Baseline for matches; compiles the pattern on every call
+	 */
+	@Benchmark
+	public boolean matchesString(Emails s) {
+		return s.emails[s.next()].matches("[\\w.+'-]+@[\\w-]+(\\.[\\w-]+)+");
+	}
+	
+	@Benchmark
+	public boolean find(Texts s) {
+		return BRules.find(s.texts[s.next()], "fox|æon");
+	}
+	
+	@Benchmark
+	public boolean dedup(Keys s) {
+		int i = s.next();
+		return s.bloom.isDuplicate(s.names[i & (BenchmarkData.SAMPLES - 1)], i, "US");
+	}
+	
+	@Benchmark
+	public boolean dedupExact(Keys s) {
+		int i = s.next();
+		return s.exact.isDuplicate(s.names[i & (BenchmarkData.SAMPLES - 1)], i, "US");
+	}
+	
+	/**
+	 * Baseline for dedup; joined composite keys in a HashSet
+	 */
+	@Benchmark
+	public boolean dedupHashSet(Keys s) {
+		int i = s.next();
+		return !s.set.add(BRules.join("|", s.names[i & (BenchmarkData.SAMPLES - 1)], i, "US"));
+	}
+	
+	@Benchmark
+	public boolean inList(Reference r, Probes s) {
+		return r.table.contains(r.probes[s.next()]);
+	}
+	
+	/**
+	 * Baseline for inList; the same values in a HashSet
+	 */
+	@Benchmark
+	public boolean inListHashSet(Reference r, Probes s) {
+		return r.set.contains(r.probes[s.next()]);
+	}
+	
+	@Benchmark
+	public int levenshtein(Texts s) {
+		int i = s.next();
+		return BRules.levenshtein(s.texts[i], s.texts[(i + 1) & (BenchmarkData.SAMPLES - 1)], 4);
+	}
+	
+	/**
+	 * Baseline for levenshtein; the commons-lang threshold version
+	 */
+	@Benchmark
+	public int levenshteinCommonsLang(Texts s) {
+		int i = s.next();
+		return StringUtils.getLevenshteinDistance(s.texts[i], s.texts[(i + 1) & (BenchmarkData.SAMPLES - 1)], 4);
+	}
+	
+	@Benchmark
+	public double jaroWinkler(Texts s) {
+		int i = s.next();
+		return BRules.jaroWinkler(s.texts[i], s.texts[(i + 1) & (BenchmarkData.SAMPLES - 1)]);
+	}
+	
+	@Benchmark
+	public String soundex(Texts s) {
+		return BRules.soundex(s.texts[s.next()]);
+	}
+	
+	@Benchmark
+	public long fingerprint(Fields s) {
+		return BRules.fingerprint(s.rows[s.next()]);
+	}
+	
+	@Benchmark
+	public String fingerprint128(Fields s) {
+		return BRules.fingerprint128(s.rows[s.next()]);
+	}
+	
+	@Benchmark
+	public String fingerprintSHA256(Fields s) {
+		return BRules.fingerprintSHA256(s.rows[s.next()]);
+	}
+	
+	/**
+	 * Baseline for fingerprint; the joined row, as compared today
+	 */
+	@Benchmark
+	public String fingerprintJoin(Fields s) {
+		return BRules.join("|", s.rows[s.next()]);
+	}
+	
+	@Benchmark
+	public boolean isXML(Xml s) throws Exception {
+		return BRules.isXML(s.xml);
+	}
+	
+	@Benchmark
+	public boolean isXMLMalformed(Xml s) throws Exception {
+		return BRules.isXML(s.malformed);
+	}
+	
+	/**
+	 * isXML through the async facade; the difference from isXML is the 
+	 * hand-off cost of the default executor
+	 */
+	@Benchmark
+	public boolean isXMLAsync(Xml s) throws Exception {
+		return BRules.Async.await(BRules.Async.isXML(s.xml), 10, TimeUnit.SECONDS);
+	}
+	
+	@Benchmark
+	public boolean okChars(Texts s) {
+		return BRules.okChars(s.texts[s.next()], "Cp1252");
+	}
+	
+	@Benchmark
+	public String toCharset(Texts s) {
+		return BRules.toCharset(s.texts[s.next()], "Cp1252", "?");
+	}
+	
+	@Benchmark
+	public String comma(Lists s) {
+		return BRules.comma(s.array);
+	}
+	
+	@Benchmark
+	public String join(Lists s) {
+		return BRules.join("|", s.array);
+	}
+	
+	@Benchmark
+	public String ul(Lists s) {
+		return BRules.ul("infolist", s.array);
+	}
+	
+	@Benchmark
+	public String ol(Lists s) {
+		return BRules.ol("", s.array);
+	}
+	
+	@Benchmark
+	public String ulEscaped(Lists s) {
+		return BRules.ulEscaped("infolist", s.array);
+	}
+	
+	@Benchmark
+	public String olEscaped(Lists s) {
+		return BRules.olEscaped("", s.array);
+	}
+	
+	@Benchmark
+	public String p(Texts s) {
+		return BRules.p("note", s.texts[s.next()]);
+	}
+	
+	@Benchmark
+	public String pEscaped(Texts s) {
+		return BRules.pEscaped("note", s.texts[s.next()]);
+	}
+	
+	@Benchmark
+	public String table(Tables s) {
+		return BRules.table("report", s.headers, s.rows);
+	}
+	
+	@Benchmark
+	public String tableEscaped(Tables s) {
+		return BRules.tableEscaped("report", s.headers, s.rows);
+	}
+	
+	@Benchmark
+	public String csv(Records s) {
+		return BRules.csv(s.rows[s.next()]);
+	}
+	
+	/**
+	 * Splits a line and materializes every field, as a row mapper would
+	 */
+	@Benchmark
+	public int csvSplit(Records s) {
+		BRules.CSVFields fields = BRules.csvSplit(s.csvLines[s.next()]);
+		int n = 0;
+		for( int i=0; i<fields.size(); i++ ) {
+			n += fields.get(i).length();
+		}
+		return n;
+	}
+	
+	@Benchmark
+	public String recordFormat(Records s) {
+		return s.layout.format(s.rows[s.next()]);
+	}
+	
+	@Benchmark
+	public String[] recordParse(Records s) {
+		return s.layout.parse(s.fixedLines[s.next()], s.dest);
+	}
+	
+	@Benchmark
+	public String listToString(Lists s) {
+		return BRules.listToString(s.list);
+	}
+	
+	@Benchmark
+	public String listToStringEscaped(Lists s) {
+		return BRules.listToString(s.list, ",", "'");
+	}
+	
+	@Benchmark
+	public String pad(Texts s) {
+		return BRules.pad(s.texts[s.next()], 80);
+	}
+	
+	@Benchmark
+	public String padWithChar(Texts s) {
+		return BRules.pad(s.texts[s.next()], 80, '0');
+	}
+	
+	@Benchmark
+	public String padInteger(Numbers s) {
+		return BRules.pad(s.ints[s.next()], 10, '0');
+	}
+	
+	@Benchmark
+	public String padLong(Numbers s) {
+		return BRules.pad(s.longs[s.next()], 12, '0');
+	}
+	
+	@Benchmark
+	public String padRight(Texts s) {
+		return BRules.padRight(s.texts[s.next()], 80);
+	}
+	
+	@Benchmark
+	public String padRightWithChar(Texts s) {
+		return BRules.padRight(s.texts[s.next()], 80, '.');
+	}
+	
+	@Benchmark
+	public String trimLeadingZeros(Numbers s) {
+		return BRules.trimLeadingZeros(s.zeroPadded[s.next()]);
+	}
+	
+	@Benchmark
+	public Integer ageInYears(Dates s) {
+		return BRules.ageInYears(s.birthDates[s.next()]);
+	}
+	
+	@Benchmark
+	public Integer ageInYearsAsOf(Dates s) {
+		return BRules.ageInYears(s.birthDates[s.next()], s.asOfDate);
+	}
+	
+	@Benchmark
+	public boolean isDate(Dates s) {
+		return BRules.isDate(s.dateStrings[s.next()], "yyyy-MM-dd");
+	}
+	
+	@Benchmark
+	public Date toDate(Dates s) {
+		return BRules.toDate(s.dateStrings[s.next()], "yyyy-MM-dd");
+	}
+	
+	@Benchmark
+	public long ruleSet(Rows s) {
+		return s.ruleSet.evaluate(s.rows[s.next()]);
+	}
+}
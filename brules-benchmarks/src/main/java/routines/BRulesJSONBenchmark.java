@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2011-2014 Bekwam, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package routines;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput benchmarks for the BRulesJSON routines
+ * 
+ * Requires a JRE with a JavaScript script engine
+ * 
+ * @author Carl2
+ * @since 1.6.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BRulesJSONBenchmark {
+
+	@State(Scope.Thread)
+	public static class Json {
+		@Param({"1", "1000"})
+		public int records;
+		String json;
+		String malformed;
+		
+		@Setup
+		public void setup() {
+			json = BenchmarkData.json(records);
+			malformed = json.substring(0, json.length() - 2);
+		}
+	}
+	
+	@Benchmark
+	public boolean isJSON(Json s) {
+		return BRulesJSON.isJSON(s.json);
+	}
+	
+	@Benchmark
+	public boolean isJSONMalformed(Json s) {
+		return BRulesJSON.isJSON(s.malformed);
+	}
+	
+	@Benchmark
+	public boolean isJSONEmptyObject() {
+		return BRulesJSON.isJSON("{ }");
+	}
+	
+	@Benchmark
+	public boolean hasJSONPath(Json s) throws Exception {
+		return BRulesJSON.hasJSONPath(s.json, "$.store.orders[0].customer");
+	}
+	
+	@Benchmark
+	public boolean hasJSONPathNoMatch(Json s) throws Exception {
+		return BRulesJSON.hasJSONPath(s.json, "$.store.books");
+	}
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright (C) 2011-2014 Bekwam, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package routines;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic input mixes shared by the benchmarks
+ * 
+ * Each generator uses a fixed seed so runs against different releases see
+ * the same data
+ * 
+ * @author Carl2
+ * @since 1.6.0
+ */
+public class BenchmarkData {
+
+	public final static int SAMPLES = 1024;
+	
+	private final static String[] VALID_PHONES = {
+		"(301) 555-5555", "301-555-1212", "+1 202 456 1111", "(410) 767-8000", "240.555.0199"
+	};
+	
+	private final static String[] INVALID_PHONES = {
+		"101", "555-CALL-NOW", "", "(000) 000-0000", "12345678901234567"
+	};
+	
+	private final static String[] VALID_EMAILS = {
+		"jdoe@example.com", "first.last+orders@mail.example.co.uk", "o'brien@example.ie", "x1@sub.example.org"
+	};
+	
+	private final static String[] INVALID_EMAILS = {
+		"plainaddress", "jdoe@localhost", "j..doe@example.com", "jdoe@ex_ample.com", "jdoe@192.168.0.1"
+	};
+	
+	private final static String[] IDS = {
+		"20500-0003", "K1A 0B1", "GB82 WEST 1234 5698 7654 32", "DE89370400440532013000",
+		"4111 1111 1111 1111", "378282246310005", "123-45-6789", "2050A"
+	};
+	
+	private final static String ASCII_WORDS = "the quick brown fox jumps over lazy dog account order customer";
+	
+	private final static String NON_ASCII_WORDS = "café naïve señor über straße ™ €100 ἀ æon";
+
+	/**
+	 * @param _mix "valid", "invalid", or "mixed" (half and half)
+	 * @return phone numbers for region US
+	 */
+	public static String[] phones(String _mix) {
+		Random r = new Random(42);
+		String[] a = new String[SAMPLES];
+		for( int i=0; i<a.length; i++ ) {
+			boolean valid = _mix.equals("valid") || (_mix.equals("mixed") && r.nextBoolean());
+			String[] src = valid ? VALID_PHONES : INVALID_PHONES;
+			a[i] = src[r.nextInt(src.length)];
+		}
+		return a;
+	}
+	
+	/**
+	 * @param _mix "valid", "invalid", or "mixed" (half and half)
+	 * @return email addresses
+	 */
+	public static String[] emails(String _mix) {
+		Random r = new Random(43);
+		String[] a = new String[SAMPLES];
+		for( int i=0; i<a.length; i++ ) {
+			boolean valid = _mix.equals("valid") || (_mix.equals("mixed") && r.nextBoolean());
+			String[] src = valid ? VALID_EMAILS : INVALID_EMAILS;
+			a[i] = src[r.nextInt(src.length)];
+		}
+		return a;
+	}
+	
+	/**
+	 * @return postal codes, IBANs, card numbers, and SSNs in random order
+	 */
+	public static String[] ids() {
+		Random r = new Random(47);
+		String[] a = new String[SAMPLES];
+		for( int i=0; i<a.length; i++ ) {
+			a[i] = IDS[r.nextInt(IDS.length)];
+		}
+		return a;
+	}
+	
+	/**
+	 * @param _mix "ascii" or "nonascii"
+	 * @param _words number of words per string
+	 * @return space-separated text
+	 */
+	public static String[] texts(String _mix, int _words) {
+		Random r = new Random(7);
+		String[] words = (_mix.equals("ascii") ? ASCII_WORDS : NON_ASCII_WORDS).split(" ");
+		String[] a = new String[SAMPLES];
+		for( int i=0; i<a.length; i++ ) {
+			StringBuilder sb = new StringBuilder();
+			for( int j=0; j<_words; j++ ) {
+				if( j > 0 ) sb.append(' ');
+				sb.append(words[r.nextInt(words.length)]);
+			}
+			a[i] = sb.toString();
+		}
+		return a;
+	}
+	
+	/**
+	 * @param _mix "text" for words, "padded" for words behind leading 
+	 * whitespace, "blank" for whitespace only
+	 * @return strings for the blank checks
+	 */
+	public static String[] blanks(String _mix) {
+		Random r = new Random(17);
+		String[] words = ASCII_WORDS.split(" ");
+		String[] a = new String[SAMPLES];
+		for( int i=0; i<a.length; i++ ) {
+			StringBuilder sb = new StringBuilder();
+			if( !_mix.equals("text") ) {
+				int n = 1 + r.nextInt(16);
+				for( int j=0; j<n; j++ ) {
+					sb.append((j % 4 == 3) ? '\t' : ' ');
+				}
+			}
+			if( !_mix.equals("blank") ) {
+				sb.append(words[r.nextInt(words.length)]);
+			}
+			a[i] = sb.toString();
+		}
+		return a;
+	}
+	
+	/**
+	 * @param _records number of child records; about 100 bytes each
+	 * @return a well-formed xml document
+	 */
+	public static String xml(int _records) {
+		StringBuilder sb = new StringBuilder("<?xml version='1.0' encoding='UTF-8'?><orders>");
+		for( int i=0; i<_records; i++ ) {
+			sb.append("<order id='").append(i).append("'><customer>Customer ").append(i)
+				.append("</customer><amount>").append(i * 3 % 1000).append(".99</amount></order>");
+		}
+		return sb.append("</orders>").toString();
+	}
+	
+	/**
+	 * @param _records number of array elements; about 80 bytes each
+	 * @return a json object with an orders array
+	 */
+	public static String json(int _records) {
+		StringBuilder sb = new StringBuilder("{\"store\": {\"orders\": [");
+		for( int i=0; i<_records; i++ ) {
+			if( i > 0 ) sb.append(',');
+			sb.append("{\"id\": ").append(i).append(", \"customer\": \"Customer ").append(i)
+				.append("\", \"amount\": ").append(i * 3 % 1000).append(".99}");
+		}
+		return sb.append("]}}").toString();
+	}
+	
+	/**
+	 * @param _size number of elements
+	 * @return short strings with about one in ten null
+	 */
+	public static List<String> list(int _size) {
+		Random r = new Random(11);
+		List<String> list = new ArrayList<String>(_size);
+		for( int i=0; i<_size; i++ ) {
+			list.add( (r.nextInt(10) == 0) ? null : "item" + r.nextInt(100000) );
+		}
+		return list;
+	}
+	
+	/**
+	 * @return numeric strings with 0 to 5 leading zeros, some beyond int range
+	 */
+	public static String[] zeroPaddedNumbers() {
+		Random r = new Random(13);
+		String[] a = new String[SAMPLES];
+		for( int i=0; i<a.length; i++ ) {
+			String n = (i % 4 == 0) ? String.valueOf(Math.abs(r.nextLong())) : String.valueOf(r.nextInt(1000000));
+			a[i] = "00000".substring(r.nextInt(6)) + n;
+		}
+		return a;
+	}
+	
+	/**
+	 * @return rows of an int id, a name, a long quantity, and a note; about
+	 * one note in four holds a delimiter, a quote, or html
+	 */
+	public static Object[][] records() {
+		Random r = new Random(29);
+		String[] names = texts("ascii", 2);
+		Object[][] rows = new Object[SAMPLES][];
+		for( int i=0; i<rows.length; i++ ) {
+			String note = (r.nextInt(4) == 0) ? "Doe, \"J\" <b>" + i + "</b>" : "note" + r.nextInt(100000);
+			rows[i] = new Object[] { r.nextInt(1000000), names[i], (long)r.nextInt(10000), note };
+		}
+		return rows;
+	}
+	
+	/**
+	 * @return dates formatted yyyy-MM-dd between 1930 and 2010; about one 
+	 * in ten is February 30
+	 */
+	public static String[] dateStrings() {
+		Random r = new Random(31);
+		String[] a = new String[SAMPLES];
+		for( int i=0; i<a.length; i++ ) {
+			int year = 1930 + r.nextInt(80);
+			a[i] = (r.nextInt(10) == 0) ? year + "-02-30" : 
+				year + "-" + BRules.pad(1 + r.nextInt(12), 2, '0') + "-" + BRules.pad(1 + r.nextInt(28), 2, '0');
+		}
+		return a;
+	}
+	
+	/**
+	 * @return birth dates between 1930 and 2010
+	 */
+	public static Date[] birthDates() {
+		Random r = new Random(17);
+		Date[] a = new Date[SAMPLES];
+		Calendar cal = Calendar.getInstance();
+		for( int i=0; i<a.length; i++ ) {
+			cal.clear();
+			cal.set(1930 + r.nextInt(80), r.nextInt(12), 1 + r.nextInt(28));
+			a[i] = cal.getTime();
+		}
+		return a;
+	}
+}
@@ -21,6 +21,7 @@ import java.io.Reader;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.JavaVersion;
 import org.apache.commons.lang3.StringUtils;
@@ -36,8 +37,8 @@ public class BRulesJSON {
 
 	private final static String ERROR_MESSAGE_JRE6 = "you must run at least Java 6 to use this method";
 		
-	private final static String REGEX_EMPTY_OBJECT = "\\{\\s*\\}";
-	private final static String REGEX_EMPTY_ARRAY  = "\\[\\s*\\]";
+	private final static Pattern REGEX_EMPTY_OBJECT = Pattern.compile("\\{\\s*\\}");
+	private final static Pattern REGEX_EMPTY_ARRAY  = Pattern.compile("\\[\\s*\\]");
 	
     /**
      * Determines whether or not a String is valid JSON
@@ -53,9 +54,9 @@ public class BRulesJSON {
 		
 		if( StringUtils.isEmpty(_json) ) return false;
 		
-		if( _json.matches(REGEX_EMPTY_OBJECT) ) return true;
+		if( REGEX_EMPTY_OBJECT.matcher(_json).matches() ) return true;
 		
-		if( StringUtils.equals(_json, REGEX_EMPTY_ARRAY) ) return true;
+		if( REGEX_EMPTY_ARRAY.matcher(_json).matches() ) return true;
 		
 		boolean testResult = false;
 		
@@ -15,22 +15,74 @@
  */
 package routines;
 
+import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.CharBuffer;
+import java.nio.IntBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetEncoder;
 import java.nio.charset.CodingErrorAction;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
 
 import org.apache.commons.lang3.StringUtils;
+import org.joda.time.DateTimeZone;
+import org.joda.time.IllegalInstantException;
 import org.joda.time.LocalDate;
 import org.joda.time.Years;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
 import org.xml.sax.SAXParseException;
 import org.xml.sax.helpers.DefaultHandler;
 
@@ -51,6 +103,136 @@ public class BRules {
 	private final static String UTF8_CHARSET = "UTF-8";	
 	private final static int DEFAULT_PAD_SIZE = 10;
 	private final static String DEFAULT_LIST_TO_STRING_DELIMITER = ",";
+	private final static int MAX_SET_MASK_ARGS = 64;
+	private final static String ERROR_MESSAGE_SETMASK_ARGS = "setMask supports at most 64 arguments";
+	private final static int MAX_RETAINED_BUILDER_CAPACITY = 1 << 18;
+	private final static int ESTIMATED_OBJECT_LENGTH = 16;
+	private final static ThreadLocal<StringBuilder> BUILDER = new ThreadLocal<StringBuilder>();
+	private final static char CSV_DELIMITER = ',';
+	private final static String[] HTML_ESCAPES = new String['>' + 1];
+	static {
+		HTML_ESCAPES['&'] = "&amp;";
+		HTML_ESCAPES['<'] = "&lt;";
+		HTML_ESCAPES['>'] = "&gt;";
+		HTML_ESCAPES['"'] = "&quot;";
+		HTML_ESCAPES['\''] = "&#39;";
+	}
+	private final static int PAD_BUFFER_SIZE = 64;
+	private final static ThreadLocal<char[]> PAD_BUFFER = new ThreadLocal<char[]>() {
+		protected char[] initialValue() {
+			return new char[PAD_BUFFER_SIZE];
+		}
+	};
+	private final static int MAX_RETAINED_ROW_LENGTH = 1 << 16;
+	private final static ThreadLocal<int[][]> ROWS = new ThreadLocal<int[][]>() {
+		protected int[][] initialValue() {
+			return new int[][] { new int[64], new int[64] };
+		}
+	};
+	private final static double JARO_WINKLER_BOOST_THRESHOLD = 0.7;
+	private final static double JARO_WINKLER_PREFIX_SCALE = 0.1;
+	private final static int JARO_WINKLER_PREFIX_LENGTH = 4;
+	private final static String SOUNDEX_CODES = "01230120022455012623010202";
+	private final static int SOUNDEX_LENGTH = 4;
+	private final static long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+	private final static int FEB_29_DAY_OF_YEAR = 31 + 28;
+	private final static ConcurrentMap<String, DateTimeZone> ZONES = new ConcurrentHashMap<String, DateTimeZone>();
+	private final static String ISO_DATE_PATTERN = "yyyy-MM-dd";
+	private final static long NOT_A_DAY = Long.MIN_VALUE;
+	private final static int MAX_CACHED_FORMATTERS = 256;
+	private final static LruCache<String, DateTimeFormatter> FORMATTERS = new LruCache<String, DateTimeFormatter>(MAX_CACHED_FORMATTERS);
+	private final static int MAX_RULES = 64;
+	private final static String ERROR_MESSAGE_RULESET_FIELDS = "a rule set requires at least one field name";
+	private final static String ERROR_MESSAGE_RULESET_RULE = "a rule requires a routine and a field";
+	private final static String ERROR_MESSAGE_RULESET_SIZE = "a rule set supports at most 64 rules";
+	private final static String ERROR_MESSAGE_RULESET_ROW = "row must have one value per rule set field";
+	private final static String ERROR_MESSAGE_DEDUP_ROWS = "expected rows must be positive";
+	private final static String ERROR_MESSAGE_DEDUP_EXACT_ROWS = "expected rows must be at most ";
+	private final static String ERROR_MESSAGE_LIST_NAME = "a list requires a table name";
+	private final static char BYTE_ORDER_MARK = '\uFEFF';
+	private final static String ERROR_MESSAGE_DEDUP_RATE = "false positive rate must be between 0 and 1";
+	private final static ConcurrentMap<String, LookupTable> LISTS = new ConcurrentHashMap<String, LookupTable>();
+	private final static ThreadLocal<KeyHash> KEY_HASH = new ThreadLocal<KeyHash>() {
+		protected KeyHash initialValue() {
+			return new KeyHash();
+		}
+	};
+	private final static ThreadLocal<DigestKey> DIGEST_KEY = new ThreadLocal<DigestKey>() {
+		protected DigestKey initialValue() {
+			return new DigestKey();
+		}
+	};
+	private final static char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+	private final static int MAX_EMAIL_LENGTH = 254;
+	private final static int MAX_EMAIL_LOCAL_LENGTH = 64;
+	private final static int MAX_EMAIL_LABEL_LENGTH = 63;
+	private final static byte EMAIL_LOCAL = 1;
+	private final static byte EMAIL_DOMAIN = 2;
+	private final static byte[] EMAIL_CHARS = new byte[128];
+	static {
+		for( char c='a'; c<='z'; c++ ) {
+			EMAIL_CHARS[c] = EMAIL_CHARS[Character.toUpperCase(c)] = EMAIL_LOCAL | EMAIL_DOMAIN;
+		}
+		for( char c='0'; c<='9'; c++ ) {
+			EMAIL_CHARS[c] = EMAIL_LOCAL | EMAIL_DOMAIN;
+		}
+		for( char c : "!#$%&'*+/=?^_`{|}~".toCharArray() ) {
+			EMAIL_CHARS[c] = EMAIL_LOCAL;
+		}
+		EMAIL_CHARS['-'] = EMAIL_LOCAL | EMAIL_DOMAIN;
+	}
+	private final static int MAX_CACHED_PATTERNS = 256;
+	private final static LruCache<String, Pattern> PATTERNS = new LruCache<String, Pattern>(MAX_CACHED_PATTERNS);
+	private final static int MATCHER_SLOTS = 8;
+	private final static ThreadLocal<Matcher[]> MATCHERS = new ThreadLocal<Matcher[]>() {
+		protected Matcher[] initialValue() {
+			return new Matcher[MATCHER_SLOTS];
+		}
+	};
+	/**
+	 * Postal code shapes by ISO 3166 country; N is a digit, A a letter, ? 
+	 * either, a space is optional, and anything else is literal
+	 */
+	private final static String[] POSTAL_CODE_FORMATS = {
+		"AR NNNN|ANNNNAAA", "AT NNNN", "AU NNNN", "BE NNNN", "BR NNNNN-NNN|NNNNNNNN",
+		"CA ANA NAN", "CH NNNN", "CN NNNNNN", "CZ NNN NN", "DE NNNNN", "DK NNNN",
+		"ES NNNNN", "FI NNNNN", "FR NNNNN", "GB AN NAA|ANN NAA|AAN NAA|AANN NAA|ANA NAA|AANA NAA",
+		"GR NNN NN", "HU NNNN", "IE ANN ????", "IL NNNNNNN", "IN NNNNNN", "IT NNNNN",
+		"JP NNN-NNNN", "KR NNNNN", "LU NNNN", "MX NNNNN", "NL NNNN AA", "NO NNNN",
+		"NZ NNNN", "PL NN-NNN", "PT NNNN-NNN", "RU NNNNNN", "SE NNN NN", "SG NNNNNN",
+		"SK NNN NN", "US NNNNN|NNNNN-NNNN", "ZA NNNN"
+	};
+	private final static Map<String, char[][]> POSTAL_CODES = new HashMap<String, char[][]>();
+	static {
+		for( String entry : POSTAL_CODE_FORMATS ) {
+			String[] formats = StringUtils.split(entry.substring(3), '|');
+			char[][] shapes = new char[formats.length][];
+			for( int i=0; i<formats.length; i++ ) {
+				shapes[i] = formats[i].toCharArray();
+			}
+			POSTAL_CODES.put(entry.substring(0, 2), shapes);
+		}
+	}
+	/**
+	 * IBAN lengths by country
+	 */
+	private final static String IBAN_LENGTHS = 
+		"AD24AE23AL28AT20AZ28BA20BE16BG22BH22BR29BY28CH21CR22CY28CZ24DE22DK18DO28" +
+		"EE20EG29ES24FI18FO18FR27GB22GE22GI23GL18GR27GT28HR21HU28IE22IL23IQ23IS26" +
+		"IT27JO30KW30KZ20LB28LC32LI21LT20LU20LV21MC27MD24ME22MK19MR27MT31MU30NL18" +
+		"NO15PK24PL28PS29PT25QA29RO24RS22SA24SC31SE24SI19SK24SM27ST25SV28TL23TN24" +
+		"TR26UA29VA22VG24XK20";
+	private final static byte[] IBAN_LENGTH = new byte[26 * 26];
+	static {
+		for( int i=0; i<IBAN_LENGTHS.length(); i+=4 ) {
+			int country = (IBAN_LENGTHS.charAt(i) - 'A') * 26 + (IBAN_LENGTHS.charAt(i+1) - 'A');
+			IBAN_LENGTH[country] = (byte)Integer.parseInt(IBAN_LENGTHS.substring(i+2, i+4));
+		}
+	}
+	private final static int MIN_CARD_DIGITS = 12;
+	private final static int MAX_CARD_DIGITS = 19;
+	private final static String RULESET_FIELDS_KEY = "fields";
+	private final static String RULESET_RULE_PREFIX = "rule.";
 
     /**
      * isPhoneNum: true if valid in accordance with country specifier; uses
@@ -85,6 +267,10 @@ public class BRules {
      */
 	public static boolean isPhoneNum(String _countryCode, String _toValidate, boolean _loose) {
 		
+		long start = Metrics.start();
+		Memo.Key key = Memo.key(Memo.Routine.IS_PHONE_NUM, _countryCode, _toValidate, _loose ? 1 : 0);
+		Object memo = Memo.get(key);
+		if( memo != null ) return Metrics.end(Metrics.Routine.IS_PHONE_NUM, start, ((Boolean)memo).booleanValue());
 		boolean valid = false;
 
 		PhoneNumberUtil phoneUtil = PhoneNumberUtil.getInstance();
@@ -100,791 +286,5624 @@ public class BRules {
 		}
 		catch(NumberParseException ignore) {}
 		
-		return valid;
+		Memo.put(key, valid);
+		return Metrics.end(Metrics.Routine.IS_PHONE_NUM, start, valid);
 	}
 	
     /**
-     * all: true if all arguments are not empty (not null for Objects,
-     * not null, empty string, or whitespace for java.lang.String)
+     * isEmail: true if a well-formed email address; uses strict check
      * 
      * {talendTypes} String
      * 
      * {Category} BRules
      * 
-     * {param} object() input: a variable number of params to check
+     * {param} string("email") input: The email address to check
      * 
-     * {example} all("one", "two", "")  # false
-     * {example} all("one") # true
+     * {example} isEmail("jdoe@example.com") # true
+     * {example} isEmail("jdoe@localhost") # false
+     * 
+     * @since 1.6.0
      */
-	public static boolean all(Object..._objects) {
-		boolean allSet = true;
-		if( _objects == null ) return false;
-		for( Object obj : _objects) {
-			if( obj instanceof String ) {
-				if( StringUtils.isEmpty((String)obj) ) {
-					allSet = false;
-					break;
-				}
-			}
-			else {
-				if( obj == null ) {
-					allSet = false;
-					break;
-				}
-			}
-		}
-		return allSet;
+	public static boolean isEmail(String _toValidate) {
+		return isEmail(_toValidate, false);
 	}
-	
+
     /**
-     * xor: true if one and only one argument is not empty (not null for Objects,
-     * not null, empty string, or whitespace for java.lang.String)
+     * isEmail: true if a well-formed email address in accordance with loose
+     * flag (false for strict)
+     * 
+     * Strict accepts an unquoted dot-atom local part of at most 64 chars and
+     * a domain of two or more hostname labels, the last not all digits.  
+     * Loose accepts any address with a single @, no whitespace or control 
+     * characters, and a dot inside the domain.  Both run in a single pass
+     * over the input.
      * 
      * {talendTypes} String
      * 
      * {Category} BRules
      * 
-     * {param} object() input: a variable number of params to check
+     * {param} string("email") input: The email address to check
+     * {param} boolean: use loose validation (true) or strict (false)
      * 
-     * {example} xor("one", "")  # true
-     * {example} xor("", "") # false
+     * {example} isEmail("jdoe@example.com", false) # true
+     * {example} isEmail("jdoe@ex_ample.com", true) # true
+     * 
+     * @since 1.6.0
      */
-	public static boolean xor(Object..._objects) {
-		boolean onlyOneSet = false;
-		if( _objects == null ) return false;
-		for( Object obj : _objects) {
-			if( obj instanceof String ) {
-				if( StringUtils.isNotEmpty((String)obj) ) {
-					if( !onlyOneSet ) {
-						onlyOneSet = true;
-					}
-					else {
-						onlyOneSet = false;
-						break;
-					}
-				}
+	public static boolean isEmail(String _toValidate, boolean _loose) {
+		long start = Metrics.start();
+		return Metrics.end(Metrics.Routine.IS_EMAIL, start, emailAddress(_toValidate, _loose));
+	}
+
+	private static boolean emailAddress(String s, boolean loose) {
+		if( s == null ) return false;
+		final int len = s.length();
+		if( len == 0 || len > MAX_EMAIL_LENGTH ) return false;
+
+		int at = 0;
+		char prev = '.';
+		for( ; at<len; at++ ) {
+			char c = s.charAt(at);
+			if( c == '@' ) break;
+			if( loose ) {
+				if( c <= ' ' || c == 0x7F || Character.isWhitespace(c) ) return false;
+			}
+			else if( c == '.' ) {
+				if( prev == '.' ) return false;
+			}
+			else if( c >= 128 || (EMAIL_CHARS[c] & EMAIL_LOCAL) == 0 ) {
+				return false;
+			}
+			prev = c;
+		}
+		if( at == 0 || at == len || at > MAX_EMAIL_LOCAL_LENGTH ) return false;
+		if( !loose && prev == '.' ) return false;
+
+		if( loose ) {
+			boolean dot = false;
+			for( int i=at+1; i<len; i++ ) {
+				char c = s.charAt(i);
+				if( c == '@' || c <= ' ' || c == 0x7F || Character.isWhitespace(c) ) return false;
+				if( c == '.' && i > at+1 && i < len-1 ) dot = true;
+			}
+			return dot;
+		}
+
+		int labels = 0;
+		int labelLength = 0;
+		boolean digitsOnly = true;
+		prev = '.';
+		for( int i=at+1; i<len; i++ ) {
+			char c = s.charAt(i);
+			if( c == '.' ) {
+				if( labelLength == 0 || prev == '-' ) return false;
+				labels++;
+				labelLength = 0;
+				digitsOnly = true;
+			}
+			else if( c < 128 && (EMAIL_CHARS[c] & EMAIL_DOMAIN) != 0 ) {
+				if( (c == '-' && labelLength == 0) || ++labelLength > MAX_EMAIL_LABEL_LENGTH ) return false;
+				if( c < '0' || c > '9' ) digitsOnly = false;
 			}
 			else {
-				if( obj != null ) {
-					if( !onlyOneSet ) {
-						onlyOneSet = true;
-					}
-					else {
-						onlyOneSet = false;
-						break;
-					}
-				}
+				return false;
 			}
+			prev = c;
 		}
-		return onlyOneSet;
-	}
-	
-	/**
-	 * isBlank: true if the string is null, the empty string, or whitespace
-	 * 
-	 * {talendTypes} String
-	 * 
-	 * {Category} BRules
-	 * 
-	 * {param} string("hello") input : string to be tested
-	 * 
-	 * {example} isBlank("hello") # false
-	 * {example} isBlank(null) # true
-	 * {example} isBlank("") # true
-	 * {example} isBlank("     ") # true
-	 * 
-	 */
-	public static boolean isBlank(String _s) { 
-		return StringUtils.isBlank(_s);
+		return labels > 0 && labelLength > 0 && prev != '-' && !digitsOnly;
 	}
 	
     /**
-     * isXML: true if the passed-in string adheres to XML well-formedness
-     * and the specified charset
+     * isPostalCode: true if the code has the shape of a postal code in the
+     * country; false for countries without a known format
+     * 
+     * Letters may be either case and the space inside codes such as 
+     * "SW1A 1AA" may be omitted
      * 
      * {talendTypes} String
      * 
      * {Category} BRules
      * 
-     * {param} string("<message>hello</message>") input: xml to be tested
-     * {param} string("ISO8859_1") input: the charset of the xml
+     * {param} string("US") country: ISO 3166 two-letter country code
+     * {param} string("20500") input: The postal code to check
      * 
-     * {example} isXML("<message>hello</message>", "ISO8859_1") # true
-     * {example} isXML("<message>hello", "ISO8859_1") # false
+     * {example} isPostalCode("US", "20500-0003") # true
+     * {example} isPostalCode("CA", "K1A 0B1") # true
+     * {example} isPostalCode("DE", "1011") # false
+     * 
+     * @since 1.6.0
      */
-	public static boolean isXML(String _xml, String _charset) throws Exception {
-		
-		boolean result = false;
-		
-		if( StringUtils.isEmpty(_xml) ) return false;
-		
-		try {
-			SAXParserFactory factory = SAXParserFactory.newInstance();
-			factory.setValidating(true);
+	public static boolean isPostalCode(String _countryCode, String _toValidate) {
+		if( _countryCode == null || _toValidate == null ) return false;
+		char[][] shapes = POSTAL_CODES.get(_countryCode);
+		if( shapes == null ) {
+			shapes = POSTAL_CODES.get(_countryCode.toUpperCase(Locale.ROOT));
+			if( shapes == null ) return false;
+		}
+		for( char[] shape : shapes ) {
+			if( hasShape(_toValidate, shape) ) return true;
+		}
+		return false;
+	}
 
-			SAXParser parser = factory.newSAXParser();
-			
-			InputStream is = new ByteArrayInputStream(_xml.getBytes(_charset));
-			
-			parser.parse(is, new DefaultHandler());
-			
-			result = true;
+	private static boolean hasShape(String s, char[] shape) {
+		final int len = s.length();
+		int i = 0;
+		for( char f : shape ) {
+			if( f == ' ' ) {
+				if( i < len && s.charAt(i) == ' ' ) i++;
+				continue;
+			}
+			if( i == len ) return false;
+			char c = s.charAt(i++);
+			switch( f ) {
+			case 'N':
+				if( !isDigit(c) ) return false;
+				break;
+			case 'A':
+				if( !isLetter(c) ) return false;
+				break;
+			case '?':
+				if( !isDigit(c) && !isLetter(c) ) return false;
+				break;
+			default:
+				if( c != f ) return false;
+			}
 		}
-		catch(SAXParseException ignore) {}
-		
-		return result;
+		return i == len;
 	}
-	
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private static boolean isLetter(char c) {
+		return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+	}
+
     /**
-     * isXML: true if the passed-in string adheres to XML well-formedness
-     * using a UTF-8 string
+     * isIBAN: true if a well-formed International Bank Account Number with 
+     * the length required by its country and a valid ISO 7064 check
+     * 
+     * Spaces between groups, as in the printed form, are ignored
      * 
      * {talendTypes} String
      * 
      * {Category} BRules
      * 
-     * {param} string("<message>hello</message>") input: xml to be tested
+     * {param} string("GB82 WEST 1234 5698 7654 32") input: The IBAN to check
      * 
-     * {example} isXML("<message>hello</message>") # true
-     * {example} isXML("<message>hello") # false
+     * {example} isIBAN("GB82 WEST 1234 5698 7654 32") # true
+     * {example} isIBAN("GB82 WEST 1234 5698 7654 33") # false
+     * 
+     * @since 1.6.0
      */
-	public static boolean isXML(String _xml) throws Exception {
-		return isXML(_xml, UTF8_CHARSET);
-	}
-	
-	/**
-	 * okChars: true if the passed-in string is valid for the specified 
-	 * character set
-	 * 
-	 * The supported character set values are those supported by Java.  The 
-	 * particular constants include "ASCII", "Cp1252", "ISO8859_1", "UTF-8".
-	 * 
-	 * If the string parameter is empty or null, 'true' is returned.
-	 * 
-	 * {talendTypes} String
-	 * 
-	 * {Category} BRules
-	 * 
-	 * {param} string("hello") input: string to be tested
-	 * {param} string("charset") input: charset of string
-	 * 
-	 * {example} okChar("hello", "ISO8859_1") # true
-	 */
-	public static boolean okChars(String _s, String _charset) {
-		if( StringUtils.isEmpty(_s) ) { return true; }
-		CharsetEncoder encoder = Charset.forName(_charset).newEncoder();
-		return encoder.canEncode(_s);
-	}
-	
-	/**
-	 * toCharset: convert a string to the character set used by Windows Latin-1.
-	 * Will convert unmappable characters to a space (" ") rather than throwing
-	 * an error
-	 * 
-	 * For example, this will conveniently map a \u2122 (TM) symbol to a 
-	 * Windows-recognized hex 99
-	 * 
-	 * {talendTypes} String
-	 * 
-	 * {Category} BRules
-	 * 
-	 * {param} string(_s) input string to convert
-	 * {example} toCharset("My Product\u2122") # returns "My Product "
-	 */
-	public static String toCharset(String _s) {
-		return toCharset(_s, "Cp1252");
-	}
-	
-	/**
-	 * toCharset: convert a string to the specified character set
-	 * Will convert unmappable characters to a space (" ") rather than throwing
-	 * an error
-	 * 
-	 * For example, this will conveniently map a \u2122 (TM) symbol to a 
-	 * Windows-recognized hex 99
-	 * 
-	 * Uses Java names for charsets: Cp1252, US-ASCII
-	 * {talendTypes} String
-	 * 
-	 * {Category} BRules
-	 * 
-	 * {param} string(_s) input string to convert
-	 * {param} string(_charset) character set to use for conversion
-	 * {example} toCharset("My Product\u2122", "Cp1252") # returns "My Product "
-	 */
-	public static String toCharset(String _s, String _charset) {
-		String cs = (StringUtils.isEmpty(_charset))?"Cp1252":_charset;
-		return toCharset(_s,cs," ");
-	}
-	
-	/**
-	 * toCharset: convert a string to the specified character set
-	 * 
-	 * Will convert unmappable characters to a specified character
-	 * 
-	 * For example, this will conveniently map a \u2122 (TM) symbol to a 
-	 * Windows-recognized hex 99
-	 * 
-	 * Uses Java names for charsets: Cp1252, US-ASCII, ISO-8859-1, UTF-8, UTF-16
-	 * 
-	 * {talendTypes} String
-	 * 
-	 * {Category} BRules
-	 * 
-	 * {param} string(_s) input string to convert
-	 * {param} string(_charset) character set to use for conversion
-	 * {param} string(_replaceCh) character to use for unmappables
-	 * {example} toCharset("My Product\u2122", "Cp1252", "?") # returns "My Product?"
-	 */
-	public static String toCharset(String _s, String _charset, String _replaceCh) {
-		String s = "";
-		String cs = (StringUtils.isEmpty(_charset))?"Cp1252":_charset;
-		String rc = (StringUtils.isEmpty(_replaceCh))?" ":_replaceCh;
-				
-		try {
-			CharsetEncoder enc = Charset.forName(cs).newEncoder();
-			enc.onUnmappableCharacter(CodingErrorAction.REPLACE);
-			enc.replaceWith( rc.getBytes() );
-			ByteBuffer buf  = enc.encode(CharBuffer.wrap(_s));		
-			s = new String(buf.array(),cs);
+	public static boolean isIBAN(String _toValidate) {
+		if( _toValidate == null ) return false;
+		final int len = _toValidate.length();
+		int country0 = 0, country1 = 0, check0 = 0, check1 = 0;
+		int n = 0;
+		int remainder = 0;
+		for( int i=0; i<len; i++ ) {
+			char c = _toValidate.charAt(i);
+			if( c == ' ' ) continue;
+			int v;
+			if( isDigit(c) ) {
+				v = c - '0';
+			}
+			else if( isLetter(c) ) {
+				v = Character.toUpperCase(c) - 'A' + 10;
+			}
+			else {
+				return false;
+			}
+			switch( n++ ) {
+			case 0: country0 = v; break;
+			case 1: country1 = v; break;
+			case 2: check0 = v; break;
+			case 3: check1 = v; break;
+			default: remainder = ibanStep(remainder, v);
+			}
 		}
-		catch (Exception ignore) {}
-		
-		return s;
+		if( n < 4 || country0 < 10 || country1 < 10 || check0 > 9 || check1 > 9 ) return false;
+		if( n != IBAN_LENGTH[(country0 - 10) * 26 + (country1 - 10)] ) return false;
+		remainder = ibanStep(ibanStep(ibanStep(ibanStep(remainder, country0), country1), check0), check1);
+		return remainder == 1;
+	}
+
+	private static int ibanStep(int _remainder, int _v) {
+		return (_v < 10) ? (_remainder * 10 + _v) % 97 : (_remainder * 100 + _v) % 97;
 	}
 
     /**
-     * isJSON: true if the passed-in string adheres to JSON format
+     * isCreditCard: true if a 12 to 19 digit card number passing the Luhn
+     * check
      * 
-     * Not supported for JDKs < 6; will throw exception
-     * 
-     * Empty expressions - {} and [] - will return true
+     * Single spaces or hyphens between digit groups are ignored
      * 
      * {talendTypes} String
      * 
      * {Category} BRules
      * 
-     * {param} string("{name: 'Carl', program: 'BRules'}") input: json to be tested
+     * {param} string("4111 1111 1111 1111") input: The card number to check
      * 
-     * {example} isJSON("<message>hello</message>") # false
-     * {example} isJSON("{name: 'Carl', program: 'BRules'}") # true
-     * {example} isJSON("{}") #true
-     * {example} isJSON(null) #false
+     * {example} isCreditCard("4111 1111 1111 1111") # true
+     * {example} isCreditCard("4111 1111 1111 1112") # false
+     * 
+     * @since 1.6.0
      */
-	public static boolean isJSON(String _json) {		
-		return BRulesJSON.isJSON(_json);
+	public static boolean isCreditCard(String _toValidate) {
+		if( _toValidate == null ) return false;
+		int digits = 0;
+		int sum = 0;
+		boolean separated = true;
+		for( int i=_toValidate.length()-1; i>=0; i-- ) {
+			char c = _toValidate.charAt(i);
+			if( isDigit(c) ) {
+				int d = c - '0';
+				if( (digits & 1) == 1 ) {
+					d *= 2;
+					if( d > 9 ) d -= 9;
+				}
+				sum += d;
+				digits++;
+				separated = false;
+			}
+			else if( (c == ' ' || c == '-') && !separated ) {
+				separated = true;
+			}
+			else {
+				return false;
+			}
+		}
+		return !separated && digits >= MIN_CARD_DIGITS && digits <= MAX_CARD_DIGITS && sum % 10 == 0;
 	}
-	
+
     /**
-     * hasJSONPath: true if the passed-in json has elements referenced in path
-     * 
-     * Not supported for JDKs < 6; will throw exception
+     * isSSN: true if a US Social Security Number in the NNN-NN-NNNN or 
+     * NNNNNNNNN form with an area, group, and serial that can be issued
      * 
      * {talendTypes} String
      * 
      * {Category} BRules
      * 
-     * {param} string("{name: 'Carl', program: 'BRules'}") input: json to be tested
+     * {param} string("123-45-6789") input: The SSN to check
      * 
-     * {example} hasJSONPath("<message>hello</message>") # false
-     * {example} hasJSONPath("{name: 'Carl', program: 'BRules'}", "$.name") # true
-     * {example} isJSON("{}") #true
-     * {example} hasJSONPath(null) #false
+     * {example} isSSN("123-45-6789") # true
+     * {example} isSSN("666-45-6789") # false
+     * 
+     * @since 1.6.0
      */
-	public static boolean hasJSONPath(String _json, String _path) throws Exception {
-		return BRulesJSON.hasJSONPath(_json, _path);
+	public static boolean isSSN(String _toValidate) {
+		if( _toValidate == null ) return false;
+		final int len = _toValidate.length();
+		boolean dashed = (len == 11);
+		if( !dashed && len != 9 ) return false;
+		if( dashed && (_toValidate.charAt(3) != '-' || _toValidate.charAt(6) != '-') ) return false;
+		int area = 0, group = 0, serial = 0;
+		int field = 0;
+		for( int i=0; i<len; i++ ) {
+			if( dashed && (i == 3 || i == 6) ) continue;
+			char c = _toValidate.charAt(i);
+			if( !isDigit(c) ) return false;
+			int d = c - '0';
+			switch( field++ ) {
+			case 0: case 1: case 2:
+				area = area * 10 + d;
+				break;
+			case 3: case 4:
+				group = group * 10 + d;
+				break;
+			default:
+				serial = serial * 10 + d;
+			}
+		}
+		return area != 0 && area != 666 && area < 900 && group != 0 && serial != 0;
 	}
-	
+
     /**
-     * comma: join the string representation of objects together with a
-     * comma
+     * matches: true if the entire string matches the regular expression
      * 
-     * Appends an empty string where an element is null
+     * The most recently used compiled patterns are cached, so a regex is 
+     * compiled once rather than on every call as with String.matches
      * 
      * {talendTypes} String
      * 
      * {Category} BRules
      * 
-     * {param} object() input: a variable number of strings to join
+     * {param} string("12345") input: The string to check
+     * {param} string("\\d{5}") regex: java.util.regex pattern
      * 
-     * {example} comma("one", "two", "three")  # "one,two,three"
+     * {example} matches("12345", "\\d{5}") # true
+     * {example} matches("12345-6789", "\\d{5}") # false
+     * 
+     * @since 1.6.0
      */
-	public static String comma(Object..._objects) {
-		return join(",", _objects);
+	public static boolean matches(String _s, String _regex) {
+		Pattern p = pattern(_regex);
+		if( _s == null ) return false;
+		return match(p, _s, true);
 	}
-	
+
     /**
-     * join: join the string representation of objects together with a
-     * character
-     * 
-     * Appends an empty string where an element is null
+     * find: true if some part of the string matches the regular expression
      * 
      * {talendTypes} String
      * 
      * {Category} BRules
      * 
-     * {param} object() input: a variable number of strings to join
+     * {param} string("12345-6789") input: The string to check
+     * {param} string("\\d{5}") regex: java.util.regex pattern
      * 
-     * {example} join("one", "two", "three")  # "one,two,three"
+     * {example} find("12345-6789", "\\d{5}") # true
+     * {example} find("abc", "\\d") # false
+     * 
+     * @since 1.6.0
      */
-	public static String join(String _delim, Object..._objects) {
-		StringBuffer sb = new StringBuffer();
-		boolean firstPass = true;
-		if( _objects != null ) {
-			for( Object obj : _objects) {
-				
-				if( !firstPass ) {
-					sb.append(_delim);
-				} else {
-					firstPass = false;
-				}
-				
-				if( obj == null ) {
-					sb.append("");
-				}
-				else {
-					sb.append( obj.toString() );
-				}
-			}
+	public static boolean find(String _s, String _regex) {
+		Pattern p = pattern(_regex);
+		if( _s == null ) return false;
+		return match(p, _s, false);
+	}
+
+	private static Pattern pattern(String _regex) {
+		if( _regex == null ) {
+			throw new IllegalArgumentException("a regex is required");
 		}
-		return sb.toString();
+		Pattern p = PATTERNS.get(_regex);
+		if( p == null ) {
+			p = Pattern.compile(_regex);
+			PATTERNS.put(_regex, p);
+		}
+		return p;
 	}
 
 	/**
-     * ul: form an html list of the specified css style from
-     * the list of objects
-     * 
-     * null objects returns an empty list (ex, "<ul></ul>")
+	 * Runs the pattern with a Matcher kept by the calling thread; each 
+	 * thread holds a few matchers, slotted by pattern identity
+	 */
+	private static boolean match(Pattern _p, String _s, boolean _entire) {
+		Matcher[] slots = MATCHERS.get();
+		int slot = System.identityHashCode(_p) & (MATCHER_SLOTS - 1);
+		Matcher m = slots[slot];
+		if( m == null || m.pattern() != _p ) {
+			m = _p.matcher(_s);
+			slots[slot] = m;
+		}
+		else {
+			m.reset(_s);
+		}
+		boolean matched = _entire ? m.matches() : m.find();
+		m.reset("");
+		return matched;
+	}
+	
+    /**
+     * all: true if all arguments are not empty (not null for Objects,
+     * not null, empty string, or whitespace for java.lang.String)
      * 
      * {talendTypes} String
      * 
      * {Category} BRules
      * 
-     * {param} styleClass : a style to apply for the toplevel list element
-     * {param} object() input: a variable number of strings to join
+     * {param} object() input: a variable number of params to check
      * 
-     * {example} ul("infolist", "a", "b")  # "<ul><li>a</li><li>b</li></ul>"
+     * {example} all("one", "two", "")  # false
+     * {example} all("one") # true
      */
-	public static String ul(String _styleClass, Object..._objects) {
-		return htmlList(_styleClass, "ul", _objects);
+	public static boolean all(Object..._objects) {
+		if( _objects == null ) return false;
+		for( Object obj : _objects) {
+			if( !isSet(obj) ) {
+				return false;
+			}
+		}
+		return true;
 	}
 	
     /**
-     * ol: form an html list of the specified css style from
-     * the list of objects
-     * 
-     * null objects returns an empty list (ex, "<ol></ol>")
+     * xor: true if one and only one argument is not empty (not null for Objects,
+     * not null, empty string, or whitespace for java.lang.String)
      * 
      * {talendTypes} String
      * 
      * {Category} BRules
      * 
-     * {param} styleClass : a style to apply for the toplevel list element
-     * {param} object() input: a variable number of strings to join
+     * {param} object() input: a variable number of params to check
      * 
-     * {example} ol("infolist", "a", "b")  # "<ol><li>a</li><li>b</li></ol>"
+     * {example} xor("one", "")  # true
+     * {example} xor("", "") # false
      */
-	public static String ol(String _styleClass, Object..._objects) {
-		return htmlList(_styleClass, "ol", _objects);
-	}
-
-	protected static String htmlList(String _styleClass, String _listType, Object..._objects) {
-		
-		if( _listType == null || 
-				!(_listType.equals("ul") || _listType.equals("ol")) ) {
-				throw new IllegalArgumentException(ERROR_MESSAGE_LISTTYPE_ARG);
-		}
-			
-		StringBuffer sb = new StringBuffer();
-			
-		if( _styleClass != null && _styleClass.length() > 0 ) {
-			sb.append("<" + _listType + " class=\"" + _styleClass + "\">"  );
-		}
-		else {
-			sb.append("<" + _listType + ">");
-		}
-			
-		if( _objects != null ) {
-			for( Object obj : _objects) {
-				sb.append("<li>" + ((obj==null)?"":obj.toString()) + "</li>");
-			}
-		}
-			
-		sb.append("</" + _listType + ">");
-		return sb.toString();
+	public static boolean xor(Object..._objects) {
+		return exactly(1, _objects);
 	}
 	
     /**
-     * p: form an html paragraph of the specified css style from
-     * the list of objects
+     * atLeast: true if at least n arguments are not empty (not null for
+     * Objects, not null, empty string, or whitespace for java.lang.String)
      * 
-     * null objects returns an empty list (ex, "<p></p>")
+     * Stops scanning as soon as the threshold is reached or can no longer
+     * be reached
      * 
      * {talendTypes} String
      * 
      * {Category} BRules
      * 
-     * {param} styleClass : a style to apply for the toplevel list element
-     * {param} object() input: a variable number of strings to join
+     * {param} int(2) n: minimum number of arguments that must be set
+     * {param} object() input: a variable number of params to check
      * 
-     * {example} p("note", "a")  # "<p class=\"note\">a</p>"
+     * {example} atLeast(2, "one", "", "three")  # true
+     * {example} atLeast(2, "one", "", null) # false
+     * 
+     * @since 1.6.0
      */
-	public static String p(String _styleClass, String _text) {
-		StringBuffer sb = new StringBuffer();
-		if( _styleClass != null && _styleClass.length() > 0 ) {
-			sb.append("<p class=\"" + _styleClass + "\">"  );
-		}
-		else {
-			sb.append("<p>");
+	public static boolean atLeast(int n, Object..._objects) {
+		if( _objects == null ) return false;
+		if( n <= 0 ) return true;
+		int count = 0;
+		for( int i=0; i<_objects.length; i++ ) {
+			if( isSet(_objects[i]) && ++count >= n ) {
+				return true;
+			}
+			if( count + (_objects.length - i - 1) < n ) {
+				return false;
+			}
 		}
-		sb.append((_text==null)?"":_text);
-		sb.append("</p>");
-		return sb.toString();
+		return false;
 	}
 
     /**
-     * Pad a 10 character string with spaces
-     * 
-     * If the string exceeds 10 chars, the input string will be returned
+     * exactly: true if exactly n arguments are not empty (not null for
+     * Objects, not null, empty string, or whitespace for java.lang.String)
      * 
-     * The method is deprecated because of the limited utility in a predefined
-     * size.
+     * Stops scanning as soon as more than n are found or n can no longer
+     * be reached
      * 
      * {talendTypes} String
      * 
      * {Category} BRules
      * 
-     * {param} pad(stringToPad) input: The string to be divided
+     * {param} int(2) n: number of arguments that must be set
+     * {param} object() input: a variable number of params to check
      * 
-     * {example} pad("100") # "         100"
-     */		
-	@Deprecated
-	public static String pad(String s) {
-		return pad(s, DEFAULT_PAD_SIZE);
+     * {example} exactly(2, "one", "", "three")  # true
+     * {example} exactly(1, "one", "two") # false
+     * 
+     * @since 1.6.0
+     */
+	public static boolean exactly(int n, Object..._objects) {
+		if( _objects == null || n < 0 ) return false;
+		int count = 0;
+		for( int i=0; i<_objects.length; i++ ) {
+			if( isSet(_objects[i]) && ++count > n ) {
+				return false;
+			}
+			if( count + (_objects.length - i - 1) < n ) {
+				return false;
+			}
+		}
+		return count == n;
 	}
-	
+
     /**
-     * Left pads the input string with spaces
-     * 
-     * {talendTypes} String
+     * none: true if no argument is set (null for Objects, null, empty 
+     * string, or whitespace for java.lang.String)
      * 
-     * {Category} BRules
-     * 
-     * {param} string(stringToPad) stringToPad: string to pad 
-     * {param} int(numPadChars) numPadChars: number of padded chars
-     * 
-     * {example} pad("100",6) # "000100"
-     * 
-     * @param s - input string to pad
-     * @param size - number of chars to pad
-     * @return padded string or input string
-     * @since 1.0.0
-     */		
-	public static String pad(String s, int size) {
-		if( size < 0 ) throw new IllegalArgumentException("size must be > 0");
-		if( StringUtils.isEmpty(s) ) return s;
-		return StringUtils.leftPad(s, size);
-	}	
-	
-    /**
-     * Left pads the input string with the specified character
+     * A null argument list returns true
      * 
      * {talendTypes} String
      * 
      * {Category} BRules
      * 
-     * {param} string(stringToPad) stringToPad: string to pad 
-     * {param} int(numPadChars) numPadChars: number of padded chars
-     * {param} char(charToUse) charToUse: char to use as padding
+     * {param} object() input: a variable number of params to check
      * 
-     * {example} pad("100", 6, '0') # "000100"
+     * {example} none("", null)  # true
+     * {example} none("", "two") # false
      * 
-     * @param s - input string to pad
-     * @param size - number of chars to pad
-     * @param ch - character to pad with
-     * @return padded string or input string
-     * @since 1.4.0
-     */		
-	public static String pad(String s, int size, char ch) {
-		if( size < 0 ) throw new IllegalArgumentException("size must be > 0");
-		if( StringUtils.isEmpty(s) ) return s;
-		return StringUtils.leftPad(s, size, ch);
-	}	
-	
+     * @since 1.6.0
+     */
+	public static boolean none(Object..._objects) {
+		if( _objects == null ) return true;
+		for( Object obj : _objects ) {
+			if( isSet(obj) ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
     /**
-     * Left pads the input integer with the specified character
+     * setMask: a bitmask reporting which arguments are set; bit i is on 
+     * if argument i is not empty (not null for Objects, not null, empty
+     * string, or whitespace for java.lang.String)
      * 
-     * {talendTypes} String
+     * At most 64 arguments are supported
+     * 
+     * {talendTypes} Long
      * 
      * {Category} BRules
      * 
-     * {param} int(integerToPad) integerToPad: int to pad 
-     * {param} int(numPadChars) numPadChars: number of padded chars
-     * {param} char(charToUse) charToUse: char to use as padding
+     * {param} object() input: a variable number of params to check (max 64)
      * 
-     * {example} pad(100, 6, '0') # "000100"
+     * {example} setMask("one", "", "three")  # 5
+     * {example} setMask(null, "") # 0
      * 
-     * @param s - input string to pad
-     * @param size - number of chars to pad
-     * @param ch - character to pad with
-     * @return padded string or input string
-     * @since 1.4.0
-     */		
-	public static String pad(Integer i, int size, char ch) {
-		if( i == null ) return null;
-		return StringUtils.leftPad(String.valueOf(i), size, ch);
-	}	
+     * @since 1.6.0
+     */
+	public static long setMask(Object..._objects) {
+		if( _objects == null ) return 0L;
+		if( _objects.length > MAX_SET_MASK_ARGS ) {
+			throw new IllegalArgumentException(ERROR_MESSAGE_SETMASK_ARGS);
+		}
+		long mask = 0L;
+		for( int i=0; i<_objects.length; i++ ) {
+			if( isSet(_objects[i]) ) {
+				mask |= (1L << i);
+			}
+		}
+		return mask;
+	}
+
+	/**
+	 * Set test shared by all, xor and the counting predicates
+	 */
+	private static boolean isSet(Object obj) {
+		if( obj instanceof String ) {
+			return !blank((String)obj);
+		}
+		return obj != null;
+	}
+
+	/**
+	 * ASCII whitespace as defined by Character.isWhitespace
+	 */
+	private final static boolean[] ASCII_WHITESPACE = new boolean[128];
+	static {
+		for( int c=0; c<ASCII_WHITESPACE.length; c++ ) {
+			ASCII_WHITESPACE[c] = Character.isWhitespace((char)c);
+		}
+	}
 
+	/**
+	 * Blank test shared by isBlank and isSet; same semantics as 
+	 * StringUtils.isBlank, returning at the first non-whitespace char
+	 */
+	private static boolean blank(String s) {
+		if( s == null ) return true;
+		final int len = s.length();
+		for( int i=0; i<len; i++ ) {
+			char c = s.charAt(i);
+			if( c < 128 ) {
+				if( !ASCII_WHITESPACE[c] ) return false;
+			}
+			else if( !Character.isWhitespace(c) ) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * isBlank: true if the string is null, the empty string, or whitespace
+	 * 
+	 * {talendTypes} String
+	 * 
+	 * {Category} BRules
+	 * 
+	 * {param} string("hello") input : string to be tested
+	 * 
+	 * {example} isBlank("hello") # false
+	 * {example} isBlank(null) # true
+	 * {example} isBlank("") # true
+	 * {example} isBlank("     ") # true
+	 * 
+	 */
+	public static boolean isBlank(String _s) { 
+		return blank(_s);
+	}
+	
     /**
-     * Left pads the input long with the specified character
+     * isXML: true if the passed-in string adheres to XML well-formedness
+     * and the specified charset
      * 
      * {talendTypes} String
      * 
      * {Category} BRules
      * 
-     * {param} long(integerToPad) integerToPad: int to pad 
-     * {param} long(numPadChars) numPadChars: number of padded chars
-     * {param} char(charToUse) charToUse: char to use as padding
-     * 
-     * {example} pad(100L, 6, '0') # "000100"
+     * {param} string("<message>hello</message>") input: xml to be tested
+     * {param} string("ISO8859_1") input: the charset of the xml
      * 
-     * @param s - input string to pad
-     * @param size - number of chars to pad
-     * @param ch - character to pad with
-     * @return padded string or input string
-     * @since 1.4.0
-     */		
-	public static String pad(Long lng, int size, char ch) {
-		if( lng == null ) return null;
-		return StringUtils.leftPad(String.valueOf(lng), size, ch);
-	}	
-	
-	/**
-     * Right pads the input string with spaces
-     * 
-     * {talendTypes} String
-     * 
-     * {Category} BRules
-     * 
-     * {param} string(stringToPad) stringToPad: string to pad 
-     * {param} int(numPadChars) numPadChars: number of padded chars
-     * 
-     * {example} pad("100", 6) # "100   "
-     * 
-     * @param s - input string to pad
-     * @param size - number of chars to pad
-     * @return padded string or input string
-     * @since 1.4.0
-     */		
-	public static String padRight(String s, int size) {
-		if( size < 0 ) throw new IllegalArgumentException("size must be > 0");
-		if( StringUtils.isEmpty(s) ) return s;
-		return StringUtils.rightPad(s, size);
-	}	
-
-	/**
-     * Right pads the input string with the specified character
-     * 
-     * {talendTypes} String
-     * 
-     * {Category} BRules
-     * 
-     * {param} string(stringToPad) stringToPad: string to pad 
-     * {param} int(numPadChars) numPadChars: number of padded chars
-     * {param} char(charToUse) charToUse: char to use as padding
-     * 
-     * {example} pad("100", 6, '0') # "100000"
-     * 
-     * @param s - input string to pad
-     * @param size - number of chars to pad
-     * @param ch - character to pad with
-     * @return padded string or input string
-     * @since 1.4.0
-     */		
-	public static String padRight(String s, int size, char ch) {
-		if( size < 0 ) throw new IllegalArgumentException("size must be > 0");
-		if( StringUtils.isEmpty(s) ) return s;
-		return StringUtils.rightPad(s, size, ch);
-	}	
-	
-	/**
-     * Take off leading zeros; assumes a number
-     * 
-     * {talendTypes} String
-     * 
-     * {Category} BRules
-     * 
-     * {param} trimLeadingZeros(string) input: The string to be divided
-     * 
-     */		
-	public static String trimLeadingZeros(String num_s) {
+     * {example} isXML("<message>hello</message>", "ISO8859_1") # true
+     * {example} isXML("<message>hello", "ISO8859_1") # false
+     */
+	public static boolean isXML(String _xml, String _charset) throws Exception {
 		
-		if( num_s == null || num_s.length() == 0 ) return "";
+		long start = Metrics.start();
+		
+		if( StringUtils.isEmpty(_xml) ) return Metrics.end(Metrics.Routine.IS_XML, start, false);
 		
 		try {
-			int i = Integer.parseInt(num_s);
-			return String.valueOf(i);
+			SAXParserFactory factory = SAXParserFactory.newInstance();
+			factory.setValidating(true);
+
+			return Metrics.end(Metrics.Routine.IS_XML, start, isXML(_xml, _charset, factory.newSAXParser()));
 		}
-		catch(NumberFormatException exc) {
-			return num_s;
+		catch(Exception exc) {
+			Metrics.error(Metrics.Routine.IS_XML, start);
+			throw exc;
 		}
 	}
 	
 	/**
-     * Calculates age in whole years based on today's date
-     * 
-     * {talendTypes} Integer
-     * 
-     * {Category} BRules
-     * 
-     * {param} date(birthDate) input: the date of birth
-     * 
-     * @param birthDate date of birth
-     * @return whole years of age
-     * 
-     */		
-	public static Integer ageInYears(Date birthDate) {
-		return ageInYears(birthDate, new Date());
+	 * For internal use only
+	 * 
+	 * Parses with a caller-supplied parser so that compiled rule sets can 
+	 * reuse one parser per thread
+	 * 
+	 * @param _xml xml to be tested
+	 * @param _charset charset of the xml
+	 * @param _parser parser to use; reset before parsing
+	 * @return true if well-formed
+	 */
+	static boolean isXML(String _xml, String _charset, SAXParser _parser) throws Exception {
+		
+		boolean result = false;
+		
+		if( StringUtils.isEmpty(_xml) ) return false;
+		
+		try {
+			_parser.reset();
+			
+			InputStream is = new ByteArrayInputStream(_xml.getBytes(_charset));
+			
+			_parser.parse(is, new DefaultHandler());
+			
+			result = true;
+		}
+		catch(SAXParseException ignore) {}
+		
+		return result;
 	}
 	
-	/**
-     * Calculates age in whole years using the specified
-     * as of date
-     * 
-     * Returns null if birthDate or asOfDate is null
+    /**
+     * isXML: true if the passed-in string adheres to XML well-formedness
+     * using a UTF-8 string
      * 
-     * {talendTypes} Integer
+     * {talendTypes} String
      * 
      * {Category} BRules
      * 
-     * {param} date(birthDate) input: the date of birth
-     * {param} date(asOfDate) input: date used for comparison; alternative to
-     * today
+     * {param} string("<message>hello</message>") input: xml to be tested
      * 
-     * @param birthDate date of birth
-     * @param asOfDate date of comparison (instead of today)
-     * @return whole years of age
-     */		
-	public static Integer ageInYears(Date birthDate, Date asOfDate) {
-		
-		if( birthDate == null || asOfDate == null ) {
-			return null;
-		}
-
-		return ageInYears(new LocalDate(birthDate), new LocalDate(asOfDate));		
+     * {example} isXML("<message>hello</message>") # true
+     * {example} isXML("<message>hello") # false
+     */
+	public static boolean isXML(String _xml) throws Exception {
+		return isXML(_xml, UTF8_CHARSET);
 	}
-
+	
 	/**
-	 * For internal use only
+	 * okChars: true if the passed-in string is valid for the specified 
+	 * character set
 	 * 
-	 * Joda Time classes aren't exposed to the calling Talend jobs because of
-	 * library dependency management
+	 * The supported character set values are those supported by Java.  The 
+	 * particular constants include "ASCII", "Cp1252", "ISO8859_1", "UTF-8".
 	 * 
-     * @param birthDate date of birth
-     * @param asOfDate date of comparison (instead of today)
-     * @return whole years of age
+	 * If the string parameter is empty or null, 'true' is returned.
+	 * 
+	 * {talendTypes} String
+	 * 
+	 * {Category} BRules
+	 * 
+	 * {param} string("hello") input: string to be tested
+	 * {param} string("charset") input: charset of string
+	 * 
+	 * {example} okChar("hello", "ISO8859_1") # true
 	 */
-	static Integer ageInYears(LocalDate birthDate, LocalDate asOfDate) {
-
-		if( birthDate == null || asOfDate == null ) {
-			return null;
+	public static boolean okChars(String _s, String _charset) {
+		long start = Metrics.start();
+		if( StringUtils.isEmpty(_s) ) { return Metrics.end(Metrics.Routine.OK_CHARS, start, true); }
+		Memo.Key key = Memo.key(Memo.Routine.OK_CHARS, _s, _charset, 0);
+		Object memo = Memo.get(key);
+		if( memo != null ) return Metrics.end(Metrics.Routine.OK_CHARS, start, ((Boolean)memo).booleanValue());
+		try {
+			CharsetEncoder encoder = Charset.forName(_charset).newEncoder();
+			boolean ok = encoder.canEncode(_s);
+			Memo.put(key, ok);
+			return Metrics.end(Metrics.Routine.OK_CHARS, start, ok);
+		}
+		catch(RuntimeException exc) {
+			Metrics.error(Metrics.Routine.OK_CHARS, start);
+			throw exc;
 		}
-		
-		Years age = Years.yearsBetween(birthDate, asOfDate);
-		
-		return age.getYears();		
 	}
 	
 	/**
-	 * Forms a comma-separated list given the input java.util.List
-	 * 
-	 * Handles different types
+	 * toCharset: convert a string to the character set used by Windows Latin-1.
+	 * Will convert unmappable characters to a space (" ") rather than throwing
+	 * an error
 	 * 
-	 * Nulls are skipped, for example [A, null, B] -> A,,B
+	 * For example, this will conveniently map a \u2122 (TM) symbol to a 
+	 * Windows-recognized hex 99
 	 * 
 	 * {talendTypes} String
 	 * 
 	 * {Category} BRules
 	 * 
-     * {param} list(inputList) input: the list to convert
-     * 
-	 * @param inputList list of objects of any time
-	 * @return empty string or list of values separated by comma
+	 * {param} string(_s) input string to convert
+	 * {example} toCharset("My Product\u2122") # returns "My Product "
 	 */
-	public static String listToString(List<?> inputList) {
-		return listToString(inputList, DEFAULT_LIST_TO_STRING_DELIMITER);
+	public static String toCharset(String _s) {
+		return toCharset(_s, "Cp1252");
 	}
 	
 	/**
-	 * Forms a comma-separated list given the input java.util.List using the 
-	 * specified delimeter
-	 * 
-	 * Handles different types
+	 * toCharset: convert a string to the specified character set
+	 * Will convert unmappable characters to a space (" ") rather than throwing
+	 * an error
 	 * 
-	 * Nulls are skipped, for example [A, null, B] -> A,,B
+	 * For example, this will conveniently map a \u2122 (TM) symbol to a 
+	 * Windows-recognized hex 99
 	 * 
+	 * Uses Java names for charsets: Cp1252, US-ASCII
 	 * {talendTypes} String
 	 * 
 	 * {Category} BRules
 	 * 
-     * {param} list(inputList) input: the list to convert
-     * {param} string(delimiter) input: delimiter to used in string separating
-     * items
-     * 
-	 * @param inputList list of objects of any time
-	 * @return empty string or list of values separated by delimiter 
-	 * 
+	 * {param} string(_s) input string to convert
+	 * {param} string(_charset) character set to use for conversion
+	 * {example} toCharset("My Product\u2122", "Cp1252") # returns "My Product "
 	 */
-	public static String listToString(List<?> inputList, String delimiter) {
-		return listToString(inputList, delimiter, null);
+	public static String toCharset(String _s, String _charset) {
+		String cs = (StringUtils.isEmpty(_charset))?"Cp1252":_charset;
+		return toCharset(_s,cs," ");
 	}
 	
 	/**
-	 * Forms a comma-separated list given the input java.util.List
+	 * toCharset: convert a string to the specified character set
 	 * 
-	 * Handles different types
+	 * Will convert unmappable characters to a specified character
 	 * 
-	 * Nulls are skipped, for example [A, null, B] -> A,,B
+	 * For example, this will conveniently map a \u2122 (TM) symbol to a 
+	 * Windows-recognized hex 99
+	 * 
+	 * Uses Java names for charsets: Cp1252, US-ASCII, ISO-8859-1, UTF-8, UTF-16
 	 * 
 	 * {talendTypes} String
 	 * 
 	 * {Category} BRules
 	 * 
-     * {param} list(inputList) input: the list to convert
-     * {param} string(delimiter) input: delimiter to used in string separating
-     * items
-     * {param} string(escapeString) input: string to wrap each item
-     * 
-	 * @param inputList list of objects of any time
-	 * @param escapeString String added to start and end of each element
-	 * @return empty string or list of values separated by comma
+	 * {param} string(_s) input string to convert
+	 * {param} string(_charset) character set to use for conversion
+	 * {param} string(_replaceCh) character to use for unmappables
+	 * {example} toCharset("My Product\u2122", "Cp1252", "?") # returns "My Product?"
 	 */
-	public static String listToString(List<?> inputList, String delimiter, String escapeString) {
-
-		StringBuffer sb = new StringBuffer("");
-		
-		if( inputList == null ) {
-			return sb.toString();
+	public static String toCharset(String _s, String _charset, String _replaceCh) {
+		long start = Metrics.start();
+		String s = "";
+		String cs = (StringUtils.isEmpty(_charset))?"Cp1252":_charset;
+		String rc = (StringUtils.isEmpty(_replaceCh))?" ":_replaceCh;
+				
+		try {
+			CharsetEncoder enc = Charset.forName(cs).newEncoder();
+			enc.onUnmappableCharacter(CodingErrorAction.REPLACE);
+			enc.replaceWith( rc.getBytes() );
+			ByteBuffer buf  = enc.encode(CharBuffer.wrap(_s));		
+			s = new String(buf.array(),cs);
 		}
+		catch (Exception ignore) {}
 		
-		boolean initialized = false;
-		for( Object obj : inputList ) {
-			
-			if( initialized ) {
-				sb.append(delimiter);
+		return Metrics.endValue(Metrics.Routine.TO_CHARSET, start, s);
+	}
+
+    /**
+     * isJSON: true if the passed-in string adheres to JSON format
+     * 
+     * Not supported for JDKs < 6; will throw exception
+     * 
+     * Empty expressions - {} and [] - will return true
+     * 
+     * {talendTypes} String
+     * 
+     * {Category} BRules
+     * 
+     * {param} string("{name: 'Carl', program: 'BRules'}") input: json to be tested
+     * 
+     * {example} isJSON("<message>hello</message>") # false
+     * {example} isJSON("{name: 'Carl', program: 'BRules'}") # true
+     * {example} isJSON("{}") #true
+     * {example} isJSON(null) #false
+     */
+	public static boolean isJSON(String _json) {		
+		long start = Metrics.start();
+		Memo.Key key = Memo.key(Memo.Routine.IS_JSON, _json, null, 0);
+		Object memo = Memo.get(key);
+		if( memo != null ) return Metrics.end(Metrics.Routine.IS_JSON, start, ((Boolean)memo).booleanValue());
+		try {
+			boolean valid = BRulesJSON.isJSON(_json);
+			Memo.put(key, valid);
+			return Metrics.end(Metrics.Routine.IS_JSON, start, valid);
+		}
+		catch(RuntimeException exc) {
+			Metrics.error(Metrics.Routine.IS_JSON, start);
+			throw exc;
+		}
+	}
+	
+    /**
+     * hasJSONPath: true if the passed-in json has elements referenced in path
+     * 
+     * Not supported for JDKs < 6; will throw exception
+     * 
+     * {talendTypes} String
+     * 
+     * {Category} BRules
+     * 
+     * {param} string("{name: 'Carl', program: 'BRules'}") input: json to be tested
+     * 
+     * {example} hasJSONPath("<message>hello</message>") # false
+     * {example} hasJSONPath("{name: 'Carl', program: 'BRules'}", "$.name") # true
+     * {example} isJSON("{}") #true
+     * {example} hasJSONPath(null) #false
+     */
+	public static boolean hasJSONPath(String _json, String _path) throws Exception {
+		long start = Metrics.start();
+		Memo.Key key = Memo.key(Memo.Routine.HAS_JSON_PATH, _json, _path, 0);
+		Object memo = Memo.get(key);
+		if( memo != null ) return Metrics.end(Metrics.Routine.HAS_JSON_PATH, start, ((Boolean)memo).booleanValue());
+		try {
+			boolean found = BRulesJSON.hasJSONPath(_json, _path);
+			Memo.put(key, found);
+			return Metrics.end(Metrics.Routine.HAS_JSON_PATH, start, found);
+		}
+		catch(Exception exc) {
+			Metrics.error(Metrics.Routine.HAS_JSON_PATH, start);
+			throw exc;
+		}
+	}
+	
+    /**
+     * comma: join the string representation of objects together with a
+     * comma
+     * 
+     * Appends an empty string where an element is null
+     * 
+     * {talendTypes} String
+     * 
+     * {Category} BRules
+     * 
+     * {param} object() input: a variable number of strings to join
+     * 
+     * {example} comma("one", "two", "three")  # "one,two,three"
+     */
+	public static String comma(Object..._objects) {
+		return join(",", _objects);
+	}
+	
+    /**
+     * commaTo: write the string representation of objects, joined with a 
+     * comma, to the output
+     * 
+     * @param _out destination, for example a Writer or StringBuilder
+     * @param _objects objects to join; null elements are written as ""
+     * @return _out
+     * @throws IOException if _out throws
+     * @since 1.6.0
+     */
+	public static <A extends Appendable> A commaTo(A _out, Object..._objects) throws IOException {
+		return joinTo(_out, ",", _objects);
+	}
+	
+    /**
+     * join: join the string representation of objects together with a
+     * character
+     * 
+     * Appends an empty string where an element is null
+     * 
+     * {talendTypes} String
+     * 
+     * {Category} BRules
+     * 
+     * {param} object() input: a variable number of strings to join
+     * 
+     * {example} join("one", "two", "three")  # "one,two,three"
+     */
+	public static String join(String _delim, Object..._objects) {
+		if( _objects == null || _objects.length == 0 ) return "";
+		StringBuilder sb = acquireBuilder(estimateLength(_delim, 0, _objects));
+		boolean firstPass = true;
+		for( Object obj : _objects) {
+			
+			if( !firstPass ) {
+				sb.append(_delim);
 			} else {
-				initialized = true;
+				firstPass = false;
+			}
+			
+			if( obj != null ) {
+				sb.append( obj.toString() );
+			}
+		}
+		return releaseBuilder(sb);
+	}
+	
+    /**
+     * joinTo: write the string representation of objects, joined with a 
+     * delimiter, to the output without building an intermediate String
+     * 
+     * @param _out destination, for example a Writer or StringBuilder
+     * @param _delim delimiter written between elements
+     * @param _objects objects to join; null elements are written as ""
+     * @return _out
+     * @throws IOException if _out throws
+     * @since 1.6.0
+     */
+	public static <A extends Appendable> A joinTo(A _out, String _delim, Object..._objects) throws IOException {
+		if( _objects == null ) return _out;
+		boolean firstPass = true;
+		for( Object obj : _objects) {
+			
+			if( !firstPass ) {
+				_out.append(_delim);
+			} else {
+				firstPass = false;
+			}
+			
+			appendObject(_out, obj);
+		}
+		return _out;
+	}
+	
+	/**
+	 * Appends CharSequences directly and other objects by toString(); 
+	 * nothing for null
+	 */
+	private static void appendObject(Appendable _out, Object _obj) throws IOException {
+		if( _obj instanceof CharSequence ) {
+			_out.append((CharSequence)_obj);
+		}
+		else if( _obj != null ) {
+			_out.append(_obj.toString());
+		}
+	}
+
+	/**
+     * ul: form an html list of the specified css style from
+     * the list of objects
+     * 
+     * null objects returns an empty list (ex, "<ul></ul>")
+     * 
+     * {talendTypes} String
+     * 
+     * {Category} BRules
+     * 
+     * {param} styleClass : a style to apply for the toplevel list element
+     * {param} object() input: a variable number of strings to join
+     * 
+     * {example} ul("infolist", "a", "b")  # "<ul><li>a</li><li>b</li></ul>"
+     */
+	public static String ul(String _styleClass, Object..._objects) {
+		return htmlList(_styleClass, "ul", _objects);
+	}
+	
+    /**
+     * ol: form an html list of the specified css style from
+     * the list of objects
+     * 
+     * null objects returns an empty list (ex, "<ol></ol>")
+     * 
+     * {talendTypes} String
+     * 
+     * {Category} BRules
+     * 
+     * {param} styleClass : a style to apply for the toplevel list element
+     * {param} object() input: a variable number of strings to join
+     * 
+     * {example} ol("infolist", "a", "b")  # "<ol><li>a</li><li>b</li></ol>"
+     */
+	public static String ol(String _styleClass, Object..._objects) {
+		return htmlList(_styleClass, "ol", _objects);
+	}
+
+	protected static String htmlList(String _styleClass, String _listType, Object..._objects) {
+		return htmlList(_styleClass, _listType, false, _objects);
+	}
+	
+	private static String htmlList(String _styleClass, String _listType, boolean _escape, Object[] _objects) {
+		
+		checkListType(_listType);
+			
+		StringBuilder sb = acquireBuilder(estimateLength("<li></li>", 32, _objects));
+		try {
+			htmlList(sb, _styleClass, _listType, _escape, _objects);
+		}
+		catch(IOException impossible) {
+			throw new IllegalStateException(impossible);
+		}
+		return releaseBuilder(sb);
+	}
+	
+	/**
+	 * For internal use only
+	 * 
+	 * @param _out destination
+	 * @param _styleClass css class of the list element; may be empty
+	 * @param _listType "ul" or "ol"
+	 * @param _escape true to HTML-escape the style class and items
+	 * @param _objects list items; nulls are written as empty items
+	 * @return _out
+	 */
+	static <A extends Appendable> A htmlList(A _out, String _styleClass, String _listType, boolean _escape, Object[] _objects) throws IOException {
+		
+		checkListType(_listType);
+			
+		_out.append('<').append(_listType);
+		appendClassAttribute(_out, _styleClass, _escape);
+		_out.append('>');
+			
+		if( _objects != null ) {
+			for( Object obj : _objects) {
+				_out.append("<li>");
+				appendHTMLText(_out, obj, _escape);
+				_out.append("</li>");
+			}
+		}
+			
+		_out.append("</").append(_listType).append('>');
+		return _out;
+	}
+	
+	private static void checkListType(String _listType) {
+		if( _listType == null || 
+				!(_listType.equals("ul") || _listType.equals("ol")) ) {
+				throw new IllegalArgumentException(ERROR_MESSAGE_LISTTYPE_ARG);
+		}
+	}
+	
+	private static void appendClassAttribute(Appendable _out, String _styleClass, boolean _escape) throws IOException {
+		if( _styleClass != null && _styleClass.length() > 0 ) {
+			_out.append(" class=\"");
+			appendHTMLText(_out, _styleClass, _escape);
+			_out.append('"');
+		}
+	}
+	
+	private static void appendHTMLText(Appendable _out, Object _obj, boolean _escape) throws IOException {
+		if( _obj == null ) return;
+		if( !_escape ) {
+			appendObject(_out, _obj);
+			return;
+		}
+		String s = _obj.toString();
+		int from = 0;
+		for( int i=0; i<s.length(); i++ ) {
+			char c = s.charAt(i);
+			if( c < HTML_ESCAPES.length && HTML_ESCAPES[c] != null ) {
+				_out.append(s, from, i).append(HTML_ESCAPES[c]);
+				from = i + 1;
+			}
+		}
+		_out.append(s, from, s.length());
+	}
+	
+    /**
+     * ulEscaped: form an html list of the specified css style from the 
+     * list of objects, escaping &amp;, &lt;, &gt;, and quotes in the items
+     * 
+     * {talendTypes} String
+     * 
+     * {Category} BRules
+     * 
+     * {param} styleClass : a style to apply for the toplevel list element
+     * {param} object() input: a variable number of strings to join
+     * 
+     * {example} ulEscaped("", "a<b")  # "<ul><li>a&lt;b</li></ul>"
+     * 
+     * @since 1.6.0
+     */
+	public static String ulEscaped(String _styleClass, Object..._objects) {
+		return htmlList(_styleClass, "ul", true, _objects);
+	}
+	
+    /**
+     * olEscaped: form an html list of the specified css style from the 
+     * list of objects, escaping &amp;, &lt;, &gt;, and quotes in the items
+     * 
+     * {talendTypes} String
+     * 
+     * {Category} BRules
+     * 
+     * {param} styleClass : a style to apply for the toplevel list element
+     * {param} object() input: a variable number of strings to join
+     * 
+     * {example} olEscaped("", "a<b")  # "<ol><li>a&lt;b</li></ol>"
+     * 
+     * @since 1.6.0
+     */
+	public static String olEscaped(String _styleClass, Object..._objects) {
+		return htmlList(_styleClass, "ol", true, _objects);
+	}
+	
+	/**
+	 * Writes an html unordered list to the output; see ul()
+	 * 
+	 * @param _out destination, for example a Writer
+	 * @return _out
+	 * @throws IOException if _out throws
+	 * @since 1.6.0
+	 */
+	public static <A extends Appendable> A ulTo(A _out, String _styleClass, Object..._objects) throws IOException {
+		return htmlList(_out, _styleClass, "ul", false, _objects);
+	}
+	
+	/**
+	 * Writes an html ordered list to the output; see ol()
+	 * 
+	 * @param _out destination, for example a Writer
+	 * @return _out
+	 * @throws IOException if _out throws
+	 * @since 1.6.0
+	 */
+	public static <A extends Appendable> A olTo(A _out, String _styleClass, Object..._objects) throws IOException {
+		return htmlList(_out, _styleClass, "ol", false, _objects);
+	}
+	
+	/**
+	 * Writes an escaped html unordered list to the output; see ulEscaped()
+	 * 
+	 * @param _out destination, for example a Writer
+	 * @return _out
+	 * @throws IOException if _out throws
+	 * @since 1.6.0
+	 */
+	public static <A extends Appendable> A ulEscapedTo(A _out, String _styleClass, Object..._objects) throws IOException {
+		return htmlList(_out, _styleClass, "ul", true, _objects);
+	}
+	
+	/**
+	 * Writes an escaped html ordered list to the output; see olEscaped()
+	 * 
+	 * @param _out destination, for example a Writer
+	 * @return _out
+	 * @throws IOException if _out throws
+	 * @since 1.6.0
+	 */
+	public static <A extends Appendable> A olEscapedTo(A _out, String _styleClass, Object..._objects) throws IOException {
+		return htmlList(_out, _styleClass, "ol", true, _objects);
+	}
+	
+    /**
+     * p: form an html paragraph of the specified css style from
+     * the list of objects
+     * 
+     * null objects returns an empty list (ex, "<p></p>")
+     * 
+     * {talendTypes} String
+     * 
+     * {Category} BRules
+     * 
+     * {param} styleClass : a style to apply for the toplevel list element
+     * {param} object() input: a variable number of strings to join
+     * 
+     * {example} p("note", "a")  # "<p class=\"note\">a</p>"
+     */
+	public static String p(String _styleClass, String _text) {
+		return p(_styleClass, _text, false);
+	}
+	
+    /**
+     * pEscaped: form an html paragraph of the specified css style, escaping
+     * &amp;, &lt;, &gt;, and quotes in the text
+     * 
+     * {talendTypes} String
+     * 
+     * {Category} BRules
+     * 
+     * {param} styleClass : a style to apply for the paragraph
+     * {param} string("a<b") text: the paragraph text
+     * 
+     * {example} pEscaped("note", "a<b")  # "<p class=\"note\">a&lt;b</p>"
+     * 
+     * @since 1.6.0
+     */
+	public static String pEscaped(String _styleClass, String _text) {
+		return p(_styleClass, _text, true);
+	}
+	
+	private static String p(String _styleClass, String _text, boolean _escape) {
+		int length = 16 + ((_styleClass == null)?0:_styleClass.length()) + ((_text == null)?0:_text.length());
+		StringBuilder sb = acquireBuilder(length);
+		try {
+			p(sb, _styleClass, _text, _escape);
+		}
+		catch(IOException impossible) {
+			throw new IllegalStateException(impossible);
+		}
+		return releaseBuilder(sb);
+	}
+	
+	/**
+	 * Writes an html paragraph to the output; see p()
+	 * 
+	 * @param _out destination, for example a Writer
+	 * @param _styleClass css class; may be empty
+	 * @param _text paragraph text; null is written as ""
+	 * @return _out
+	 * @throws IOException if _out throws
+	 * @since 1.6.0
+	 */
+	public static <A extends Appendable> A pTo(A _out, String _styleClass, String _text) throws IOException {
+		return p(_out, _styleClass, _text, false);
+	}
+	
+	/**
+	 * Writes an escaped html paragraph to the output; see pEscaped()
+	 * 
+	 * @param _out destination, for example a Writer
+	 * @param _styleClass css class; may be empty
+	 * @param _text paragraph text; null is written as ""
+	 * @return _out
+	 * @throws IOException if _out throws
+	 * @since 1.6.0
+	 */
+	public static <A extends Appendable> A pEscapedTo(A _out, String _styleClass, String _text) throws IOException {
+		return p(_out, _styleClass, _text, true);
+	}
+	
+	private static <A extends Appendable> A p(A _out, String _styleClass, String _text, boolean _escape) throws IOException {
+		_out.append("<p");
+		appendClassAttribute(_out, _styleClass, _escape);
+		_out.append('>');
+		appendHTMLText(_out, _text, _escape);
+		_out.append("</p>");
+		return _out;
+	}
+	
+    /**
+     * table: form an html table of the specified css style from a header
+     * list and a batch of rows
+     * 
+     * Null headers omit the thead; null rows and cells are written empty
+     * 
+     * {talendTypes} String
+     * 
+     * {Category} BRules
+     * 
+     * {param} styleClass : a style to apply for the table element
+     * {param} list(headers) headers: column headings; may be null
+     * {param} list(rows) rows: a list of rows, each a list of cell values
+     * 
+     * {example} table("report", headers, rows) # "<table class=\"report\"><thead>..."
+     * 
+     * @since 1.6.0
+     */
+	public static String table(String _styleClass, List<?> _headers, List<? extends List<?>> _rows) {
+		return table(_styleClass, _headers, _rows, false);
+	}
+	
+    /**
+     * table: form an html table of the specified css style from a header
+     * array and an array of rows
+     * 
+     * {talendTypes} String
+     * 
+     * {Category} BRules
+     * 
+     * {param} styleClass : a style to apply for the table element
+     * {param} object(headers) headers: column headings; may be null
+     * {param} object(rows) rows: an array of rows, each an array of cell values
+     * 
+     * {example} table("report", new Object[] {"a"}, new Object[][] {{1}}) # "<table class=\"report\"><thead><tr><th>a</th></tr></thead><tbody><tr><td>1</td></tr></tbody></table>"
+     * 
+     * @since 1.6.0
+     */
+	public static String table(String _styleClass, Object[] _headers, Object[][] _rows) {
+		return table(_styleClass, asList(_headers), asList(_rows), false);
+	}
+	
+    /**
+     * tableEscaped: form an html table like table(), escaping &amp;, &lt;, 
+     * &gt;, and quotes in the headers and cells
+     * 
+     * {talendTypes} String
+     * 
+     * {Category} BRules
+     * 
+     * {param} styleClass : a style to apply for the table element
+     * {param} list(headers) headers: column headings; may be null
+     * {param} list(rows) rows: a list of rows, each a list of cell values
+     * 
+     * @since 1.6.0
+     */
+	public static String tableEscaped(String _styleClass, List<?> _headers, List<? extends List<?>> _rows) {
+		return table(_styleClass, _headers, _rows, true);
+	}
+	
+    /**
+     * tableEscaped: form an html table like table(), escaping &amp;, &lt;, 
+     * &gt;, and quotes in the headers and cells
+     * 
+     * {talendTypes} String
+     * 
+     * {Category} BRules
+     * 
+     * {param} styleClass : a style to apply for the table element
+     * {param} object(headers) headers: column headings; may be null
+     * {param} object(rows) rows: an array of rows, each an array of cell values
+     * 
+     * @since 1.6.0
+     */
+	public static String tableEscaped(String _styleClass, Object[] _headers, Object[][] _rows) {
+		return table(_styleClass, asList(_headers), asList(_rows), true);
+	}
+	
+	/**
+	 * Writes an html table to the output; see table()
+	 * 
+	 * @param _out destination, for example a Writer
+	 * @return _out
+	 * @throws IOException if _out throws
+	 * @since 1.6.0
+	 */
+	public static <A extends Appendable> A tableTo(A _out, String _styleClass, List<?> _headers, List<? extends List<?>> _rows) throws IOException {
+		return table(_out, _styleClass, _headers, _rows, false);
+	}
+	
+	/**
+	 * Writes an html table to the output; see table()
+	 * 
+	 * @param _out destination, for example a Writer
+	 * @return _out
+	 * @throws IOException if _out throws
+	 * @since 1.6.0
+	 */
+	public static <A extends Appendable> A tableTo(A _out, String _styleClass, Object[] _headers, Object[][] _rows) throws IOException {
+		return table(_out, _styleClass, asList(_headers), asList(_rows), false);
+	}
+	
+	/**
+	 * Writes an escaped html table to the output; see tableEscaped()
+	 * 
+	 * @param _out destination, for example a Writer
+	 * @return _out
+	 * @throws IOException if _out throws
+	 * @since 1.6.0
+	 */
+	public static <A extends Appendable> A tableEscapedTo(A _out, String _styleClass, List<?> _headers, List<? extends List<?>> _rows) throws IOException {
+		return table(_out, _styleClass, _headers, _rows, true);
+	}
+	
+	/**
+	 * Writes an escaped html table to the output; see tableEscaped()
+	 * 
+	 * @param _out destination, for example a Writer
+	 * @return _out
+	 * @throws IOException if _out throws
+	 * @since 1.6.0
+	 */
+	public static <A extends Appendable> A tableEscapedTo(A _out, String _styleClass, Object[] _headers, Object[][] _rows) throws IOException {
+		return table(_out, _styleClass, asList(_headers), asList(_rows), true);
+	}
+	
+	private static <T> List<T> asList(T[] _a) {
+		return (_a == null) ? null : Arrays.asList(_a);
+	}
+	
+	private static String table(String _styleClass, List<?> _headers, List<?> _rows, boolean _escape) {
+		
+		int length = 64 + ((_styleClass == null)?0:_styleClass.length());
+		if( _headers != null ) {
+			length += estimateLength("<th></th>", 0, _headers);
+		}
+		if( _rows != null ) {
+			for( Object row : _rows ) {
+				length += 9;
+				if( row != null ) {
+					length += estimateLength("<td></td>", 0, cells(row));
+				}
+			}
+		}
+		
+		StringBuilder sb = acquireBuilder(length);
+		try {
+			table(sb, _styleClass, _headers, _rows, _escape);
+		}
+		catch(IOException impossible) {
+			throw new IllegalStateException(impossible);
+		}
+		return releaseBuilder(sb);
+	}
+	
+	private static <A extends Appendable> A table(A _out, String _styleClass, List<?> _headers, List<?> _rows, boolean _escape) throws IOException {
+		
+		_out.append("<table");
+		appendClassAttribute(_out, _styleClass, _escape);
+		_out.append('>');
+		
+		if( _headers != null ) {
+			_out.append("<thead><tr>");
+			for( Object h : _headers ) {
+				_out.append("<th>");
+				appendHTMLText(_out, h, _escape);
+				_out.append("</th>");
+			}
+			_out.append("</tr></thead>");
+		}
+		
+		_out.append("<tbody>");
+		if( _rows != null ) {
+			for( Object row : _rows ) {
+				_out.append("<tr>");
+				if( row != null ) {
+					for( Object cell : cells(row) ) {
+						_out.append("<td>");
+						appendHTMLText(_out, cell, _escape);
+						_out.append("</td>");
+					}
+				}
+				_out.append("</tr>");
+			}
+		}
+		_out.append("</tbody></table>");
+		return _out;
+	}
+	
+	/**
+	 * A row is either a List or an Object[]
+	 */
+	private static Iterable<?> cells(Object _row) {
+		if( _row instanceof Object[] ) {
+			return Arrays.asList((Object[])_row);
+		}
+		return (Iterable<?>)_row;
+	}
+	
+    /**
+     * escapeHTML: escape &amp;, &lt;, &gt;, and quotes for use in html 
+     * text or attribute values
+     * 
+     * Returns the input instance when nothing needs escaping
+     * 
+     * {talendTypes} String
+     * 
+     * {Category} BRules
+     * 
+     * {param} string("a<b") input: text to escape
+     * 
+     * {example} escapeHTML("a<b & c")  # "a&lt;b &amp; c"
+     * {example} escapeHTML(null)  # null
+     * 
+     * @since 1.6.0
+     */
+	public static String escapeHTML(String _s) {
+		if( _s == null ) return null;
+		int i = 0;
+		for( ; i<_s.length(); i++ ) {
+			char c = _s.charAt(i);
+			if( c < HTML_ESCAPES.length && HTML_ESCAPES[c] != null ) {
+				break;
+			}
+		}
+		if( i == _s.length() ) return _s;
+		StringBuilder sb = new StringBuilder(_s.length() + 16);
+		try {
+			appendHTMLText(sb, _s, true);
+		}
+		catch(IOException impossible) {
+			throw new IllegalStateException(impossible);
+		}
+		return sb.toString();
+	}
+
+    /**
+     * Pad a 10 character string with spaces
+     * 
+     * If the string exceeds 10 chars, the input string will be returned
+     * 
+     * The method is deprecated because of the limited utility in a predefined
+     * size.
+     * 
+     * {talendTypes} String
+     * 
+     * {Category} BRules
+     * 
+     * {param} pad(stringToPad) input: The string to be divided
+     * 
+     * {example} pad("100") # "         100"
+     */		
+	@Deprecated
+	public static String pad(String s) {
+		return pad(s, DEFAULT_PAD_SIZE);
+	}
+	
+    /**
+     * Left pads the input string with spaces
+     * 
+     * {talendTypes} String
+     * 
+     * {Category} BRules
+     * 
+     * {param} string(stringToPad) stringToPad: string to pad 
+     * {param} int(numPadChars) numPadChars: number of padded chars
+     * 
+     * {example} pad("100",6) # "000100"
+     * 
+     * @param s - input string to pad
+     * @param size - number of chars to pad
+     * @return padded string or input string
+     * @since 1.0.0
+     */		
+	public static String pad(String s, int size) {
+		if( size < 0 ) throw new IllegalArgumentException("size must be > 0");
+		if( StringUtils.isEmpty(s) ) return s;
+		return StringUtils.leftPad(s, size);
+	}	
+	
+    /**
+     * Left pads the input string with the specified character
+     * 
+     * {talendTypes} String
+     * 
+     * {Category} BRules
+     * 
+     * {param} string(stringToPad) stringToPad: string to pad 
+     * {param} int(numPadChars) numPadChars: number of padded chars
+     * {param} char(charToUse) charToUse: char to use as padding
+     * 
+     * {example} pad("100", 6, '0') # "000100"
+     * 
+     * @param s - input string to pad
+     * @param size - number of chars to pad
+     * @param ch - character to pad with
+     * @return padded string or input string
+     * @since 1.4.0
+     */		
+	public static String pad(String s, int size, char ch) {
+		if( size < 0 ) throw new IllegalArgumentException("size must be > 0");
+		if( StringUtils.isEmpty(s) ) return s;
+		return StringUtils.leftPad(s, size, ch);
+	}	
+	
+    /**
+     * Left pads the input integer with the specified character
+     * 
+     * {talendTypes} String
+     * 
+     * {Category} BRules
+     * 
+     * {param} int(integerToPad) integerToPad: int to pad 
+     * {param} int(numPadChars) numPadChars: number of padded chars
+     * {param} char(charToUse) charToUse: char to use as padding
+     * 
+     * {example} pad(100, 6, '0') # "000100"
+     * 
+     * @param s - input string to pad
+     * @param size - number of chars to pad
+     * @param ch - character to pad with
+     * @return padded string or input string
+     * @since 1.4.0
+     */		
+	public static String pad(Integer i, int size, char ch) {
+		if( i == null ) return null;
+		return pad(i.longValue(), size, ch);
+	}	
+
+    /**
+     * Left pads the input int with the specified character
+     * 
+     * Writes the digits and padding into one buffer without boxing
+     * 
+     * {talendTypes} String
+     * 
+     * {Category} BRules
+     * 
+     * {param} int(integerToPad) integerToPad: int to pad 
+     * {param} int(numPadChars) numPadChars: number of padded chars
+     * {param} char(charToUse) charToUse: char to use as padding
+     * 
+     * {example} pad(100, 6, '0') # "000100"
+     * 
+     * @param i - input int to pad
+     * @param size - number of chars to pad
+     * @param ch - character to pad with
+     * @return padded string
+     * @since 1.6.0
+     */		
+	public static String pad(int i, int size, char ch) {
+		return pad((long)i, size, ch);
+	}	
+	
+    /**
+     * Left pads the input long with the specified character
+     * 
+     * Writes the digits and padding into one buffer without boxing.  As
+     * with the String overloads, padding goes before any minus sign.
+     * 
+     * {talendTypes} String
+     * 
+     * {Category} BRules
+     * 
+     * {param} long(integerToPad) integerToPad: long to pad 
+     * {param} int(numPadChars) numPadChars: number of padded chars
+     * {param} char(charToUse) charToUse: char to use as padding
+     * 
+     * {example} pad(100L, 6, '0') # "000100"
+     * 
+     * @param lng - input long to pad
+     * @param size - number of chars to pad
+     * @param ch - character to pad with
+     * @return padded string
+     * @since 1.6.0
+     */		
+	public static String pad(long lng, int size, char ch) {
+		
+		int numChars = numChars(lng);
+		int width = Math.max(size, numChars);
+		
+		char[] buf = (width <= PAD_BUFFER_SIZE) ? PAD_BUFFER.get() : new char[width];
+		
+		int pos = getChars(lng, width, buf);
+		while( pos > 0 ) {
+			buf[--pos] = ch;
+		}
+		return new String(buf, 0, width);
+	}
+	
+	/**
+	 * @return number of chars in the decimal form of _v, including any sign
+	 */
+	static int numChars(long _v) {
+		// work with the negative value so Long.MIN_VALUE doesn't overflow
+		long q = (_v > 0) ? -_v : _v;
+		int n = (_v < 0) ? 2 : 1;
+		for( q /= 10; q != 0; q /= 10 ) {
+			n++;
+		}
+		return n;
+	}
+	
+	/**
+	 * Writes the decimal form of _v so that it ends just before _end
+	 * 
+	 * @return index of the first char written
+	 */
+	static int getChars(long _v, int _end, char[] _buf) {
+		long q = (_v > 0) ? -_v : _v;
+		int pos = _end;
+		do {
+			_buf[--pos] = (char)('0' - (q % 10));
+			q /= 10;
+		} while( q != 0 );
+		if( _v < 0 ) {
+			_buf[--pos] = '-';
+		}
+		return pos;
+	}
+
+    /**
+     * Left pads the input long with the specified character
+     * 
+     * {talendTypes} String
+     * 
+     * {Category} BRules
+     * 
+     * {param} long(integerToPad) integerToPad: int to pad 
+     * {param} long(numPadChars) numPadChars: number of padded chars
+     * {param} char(charToUse) charToUse: char to use as padding
+     * 
+     * {example} pad(100L, 6, '0') # "000100"
+     * 
+     * @param s - input string to pad
+     * @param size - number of chars to pad
+     * @param ch - character to pad with
+     * @return padded string or input string
+     * @since 1.4.0
+     */		
+	public static String pad(Long lng, int size, char ch) {
+		if( lng == null ) return null;
+		return pad(lng.longValue(), size, ch);
+	}	
+	
+	/**
+     * Right pads the input string with spaces
+     * 
+     * {talendTypes} String
+     * 
+     * {Category} BRules
+     * 
+     * {param} string(stringToPad) stringToPad: string to pad 
+     * {param} int(numPadChars) numPadChars: number of padded chars
+     * 
+     * {example} pad("100", 6) # "100   "
+     * 
+     * @param s - input string to pad
+     * @param size - number of chars to pad
+     * @return padded string or input string
+     * @since 1.4.0
+     */		
+	public static String padRight(String s, int size) {
+		if( size < 0 ) throw new IllegalArgumentException("size must be > 0");
+		if( StringUtils.isEmpty(s) ) return s;
+		return StringUtils.rightPad(s, size);
+	}	
+
+	/**
+     * Right pads the input string with the specified character
+     * 
+     * {talendTypes} String
+     * 
+     * {Category} BRules
+     * 
+     * {param} string(stringToPad) stringToPad: string to pad 
+     * {param} int(numPadChars) numPadChars: number of padded chars
+     * {param} char(charToUse) charToUse: char to use as padding
+     * 
+     * {example} pad("100", 6, '0') # "100000"
+     * 
+     * @param s - input string to pad
+     * @param size - number of chars to pad
+     * @param ch - character to pad with
+     * @return padded string or input string
+     * @since 1.4.0
+     */		
+	public static String padRight(String s, int size, char ch) {
+		if( size < 0 ) throw new IllegalArgumentException("size must be > 0");
+		if( StringUtils.isEmpty(s) ) return s;
+		return StringUtils.rightPad(s, size, ch);
+	}	
+	
+	/**
+     * Take off leading zeros; assumes a number
+     * 
+     * Handles any number of digits, an optional sign, and surrounding 
+     * whitespace.  A string that isn't an integer is returned unchanged, 
+     * as is a number with nothing to trim.
+     * 
+     * {talendTypes} String
+     * 
+     * {Category} BRules
+     * 
+     * {param} trimLeadingZeros(string) input: The string to be divided
+     * 
+     * {example} trimLeadingZeros("00101") # "101"
+     * {example} trimLeadingZeros("-0012345678901") # "-12345678901"
+     * {example} trimLeadingZeros("abc") # "abc"
+     */		
+	public static String trimLeadingZeros(String num_s) {
+		
+		if( num_s == null || num_s.length() == 0 ) return "";
+		
+		Memo.Key key = Memo.key(Memo.Routine.TRIM_LEADING_ZEROS, num_s, null, 0);
+		Object memo = Memo.get(key);
+		if( memo != null ) return (String)memo;
+		String trimmed = trimZeros(num_s);
+		Memo.put(key, trimmed);
+		return trimmed;
+	}
+	
+	private static String trimZeros(String num_s) {
+		
+		int len = num_s.length();
+		int begin = 0;
+		int end = len;
+		while( begin < end && Character.isWhitespace(num_s.charAt(begin)) ) begin++;
+		while( end > begin && Character.isWhitespace(num_s.charAt(end - 1)) ) end--;
+		
+		int i = begin;
+		boolean negative = false;
+		if( i < end && (num_s.charAt(i) == '-' || num_s.charAt(i) == '+') ) {
+			negative = num_s.charAt(i) == '-';
+			i++;
+		}
+		if( i == end ) return num_s;
+		
+		int firstDigit = i;
+		for( int j=i; j<end; j++ ) {
+			char c = num_s.charAt(j);
+			if( c < '0' || c > '9' ) return num_s;
+		}
+		
+		while( i < end - 1 && num_s.charAt(i) == '0' ) i++;
+		
+		if( num_s.charAt(i) == '0' ) return "0";
+		
+		if( negative ) {
+			if( i == firstDigit && begin == 0 && end == len ) return num_s;
+			return "-" + num_s.substring(i, end);
+		}
+		if( i == begin && end == len ) return num_s;
+		return num_s.substring(i, end);
+	}
+	
+	/**
+     * levenshtein: the number of single-char insertions, deletions, and 
+     * substitutions that turn one string into the other; null is treated 
+     * as the empty string
+     * 
+     * {talendTypes} int
+     * 
+     * {Category} BRules
+     * 
+     * {param} string("kitten") a: first string
+     * {param} string("sitting") b: second string
+     * 
+     * {example} levenshtein("kitten", "sitting") # 3
+     * 
+     * @since 1.6.0
+     */
+	public static int levenshtein(String _a, String _b) {
+		String a = (_a == null) ? "" : _a;
+		String b = (_b == null) ? "" : _b;
+		return levenshtein(a, b, Math.max(a.length(), b.length()));
+	}
+
+	/**
+     * levenshtein: the edit distance between two strings if it is at most
+     * maxDistance, otherwise -1; null is treated as the empty string
+     * 
+     * Only the diagonal band of width 2 * maxDistance + 1 is computed, and 
+     * the scan stops as soon as every cell in a row exceeds maxDistance, so
+     * the cost is O(maxDistance * length) rather than O(length^2)
+     * 
+     * {talendTypes} int
+     * 
+     * {Category} BRules
+     * 
+     * {param} string("kitten") a: first string
+     * {param} string("sitting") b: second string
+     * {param} int(2) maxDistance: largest distance of interest
+     * 
+     * {example} levenshtein("kitten", "sitting", 3) # 3
+     * {example} levenshtein("kitten", "sitting", 2) # -1
+     * 
+     * @since 1.6.0
+     */
+	public static int levenshtein(String _a, String _b, int _maxDistance) {
+		if( _maxDistance < 0 ) throw new IllegalArgumentException("maxDistance must be >= 0");
+		String s = (_a == null) ? "" : _a;
+		String t = (_b == null) ? "" : _b;
+		if( s.length() > t.length() ) {
+			String tmp = s;
+			s = t;
+			t = tmp;
+		}
+		final int n = s.length();
+		final int m = t.length();
+		final int k = _maxDistance;
+		if( m - n > k ) return -1;
+		if( n == 0 ) return m;
+		
+		final int over = k + 1;
+		int[][] rows = rows(n + 1);
+		int[] p = rows[0];
+		int[] d = rows[1];
+		int boundary = Math.min(n, k) + 1;
+		for( int i=0; i<boundary; i++ ) p[i] = i;
+		Arrays.fill(p, boundary, n + 1, over);
+		Arrays.fill(d, 0, n + 1, over);
+		
+		for( int j=1; j<=m; j++ ) {
+			char tj = t.charAt(j - 1);
+			d[0] = j;
+			int lo = Math.max(1, j - k);
+			int hi = (j > Integer.MAX_VALUE - k) ? n : Math.min(n, j + k);
+			if( lo > 1 ) d[lo - 1] = over;
+			int lowest = (lo == 1) ? j : over;
+			for( int i=lo; i<=hi; i++ ) {
+				if( s.charAt(i - 1) == tj ) {
+					d[i] = p[i - 1];
+				}
+				else {
+					d[i] = 1 + Math.min(Math.min(d[i - 1], p[i]), p[i - 1]);
+				}
+				if( d[i] < lowest ) lowest = d[i];
+			}
+			if( lowest > k ) return -1;
+			int[] tmp = p;
+			p = d;
+			d = tmp;
+		}
+		return (p[n] <= k) ? p[n] : -1;
+	}
+
+	/**
+	 * Two int rows of at least the length, kept by the calling thread 
+	 * unless very large
+	 */
+	private static int[][] rows(int _length) {
+		int[][] rows = ROWS.get();
+		if( rows[0].length < _length ) {
+			int[][] grown = new int[][] { new int[_length], new int[_length] };
+			if( _length <= MAX_RETAINED_ROW_LENGTH ) ROWS.set(grown);
+			return grown;
+		}
+		return rows;
+	}
+
+	/**
+     * jaroWinkler: similarity from 0.0 (nothing in common) to 1.0 
+     * (identical), favoring strings that share a prefix; null is treated
+     * as the empty string
+     * 
+     * Uses the standard prefix scale of 0.1 over at most 4 chars, applied 
+     * when the Jaro similarity is above 0.7
+     * 
+     * {talendTypes} double
+     * 
+     * {Category} BRules
+     * 
+     * {param} string("MARTHA") a: first string
+     * {param} string("MARHTA") b: second string
+     * 
+     * {example} jaroWinkler("MARTHA", "MARHTA") # 0.961
+     * 
+     * @since 1.6.0
+     */
+	public static double jaroWinkler(String _a, String _b) {
+		String a = (_a == null) ? "" : _a;
+		String b = (_b == null) ? "" : _b;
+		if( a.equals(b) ) return 1.0;
+		final int n = a.length();
+		final int m = b.length();
+		if( n == 0 || m == 0 ) return 0.0;
+		
+		int[][] rows = rows(Math.max(n, m));
+		int[] aMatched = rows[0];
+		int[] bMatched = rows[1];
+		Arrays.fill(aMatched, 0, n, 0);
+		Arrays.fill(bMatched, 0, m, 0);
+		
+		int window = Math.max(0, Math.max(n, m) / 2 - 1);
+		int matches = 0;
+		for( int i=0; i<n; i++ ) {
+			char c = a.charAt(i);
+			int hi = Math.min(m - 1, i + window);
+			for( int j=Math.max(0, i - window); j<=hi; j++ ) {
+				if( bMatched[j] == 0 && b.charAt(j) == c ) {
+					aMatched[i] = 1;
+					bMatched[j] = 1;
+					matches++;
+					break;
+				}
+			}
+		}
+		if( matches == 0 ) return 0.0;
+		
+		int halfTranspositions = 0;
+		for( int i=0, j=0; i<n; i++ ) {
+			if( aMatched[i] == 0 ) continue;
+			while( bMatched[j] == 0 ) j++;
+			if( a.charAt(i) != b.charAt(j) ) halfTranspositions++;
+			j++;
+		}
+		double jaro = ((double)matches / n + (double)matches / m + (double)(matches - halfTranspositions / 2) / matches) / 3.0;
+		if( jaro <= JARO_WINKLER_BOOST_THRESHOLD ) return jaro;
+		
+		int prefix = 0;
+		int maxPrefix = Math.min(JARO_WINKLER_PREFIX_LENGTH, Math.min(n, m));
+		while( prefix < maxPrefix && a.charAt(prefix) == b.charAt(prefix) ) prefix++;
+		return jaro + prefix * JARO_WINKLER_PREFIX_SCALE * (1.0 - jaro);
+	}
+
+	/**
+     * soundex: the four-character American Soundex code of a name, e.g. 
+     * for grouping names that sound alike; non-letters are ignored
+     * 
+     * Returns null for null and the empty string if there are no letters
+     * 
+     * {talendTypes} String
+     * 
+     * {Category} BRules
+     * 
+     * {param} string("Robert") input: The name to encode
+     * 
+     * {example} soundex("Robert") # "R163"
+     * {example} soundex("Rupert") # "R163"
+     * 
+     * @since 1.6.0
+     */
+	public static String soundex(String _s) {
+		if( _s == null ) return null;
+		char[] code = PAD_BUFFER.get();
+		int n = 0;
+		char last = 0;
+		for( int i=0; i<_s.length() && n<SOUNDEX_LENGTH; i++ ) {
+			char c = _s.charAt(i);
+			if( c >= 'a' && c <= 'z' ) c -= 'a' - 'A';
+			if( c < 'A' || c > 'Z' ) continue;
+			char digit = SOUNDEX_CODES.charAt(c - 'A');
+			if( n == 0 ) {
+				code[n++] = c;
+				last = digit;
+				continue;
+			}
+			if( c == 'H' || c == 'W' ) continue;
+			if( digit != '0' && digit != last ) {
+				code[n++] = digit;
+			}
+			last = digit;
+		}
+		if( n == 0 ) return "";
+		while( n < SOUNDEX_LENGTH ) code[n++] = '0';
+		return new String(code, 0, SOUNDEX_LENGTH);
+	}
+	
+	/**
+     * Calculates age in whole years based on today's date
+     * 
+     * {talendTypes} Integer
+     * 
+     * {Category} BRules
+     * 
+     * {param} date(birthDate) input: the date of birth
+     * 
+     * @param birthDate date of birth
+     * @return whole years of age
+     * 
+     */		
+	public static Integer ageInYears(Date birthDate) {
+		if( birthDate == null ) {
+			return null;
+		}
+		DateTimeZone zone = defaultZone();
+		return ageInYears(toEpochDay(birthDate.getTime(), zone), toEpochDay(System.currentTimeMillis(), zone));
+	}
+	
+	/**
+     * Calculates age in whole years using the specified
+     * as of date
+     * 
+     * Returns null if birthDate or asOfDate is null
+     * 
+     * {talendTypes} Integer
+     * 
+     * {Category} BRules
+     * 
+     * {param} date(birthDate) input: the date of birth
+     * {param} date(asOfDate) input: date used for comparison; alternative to
+     * today
+     * 
+     * @param birthDate date of birth
+     * @param asOfDate date of comparison (instead of today)
+     * @return whole years of age
+     */		
+	public static Integer ageInYears(Date birthDate, Date asOfDate) {
+		
+		if( birthDate == null || asOfDate == null ) {
+			return null;
+		}
+
+		DateTimeZone zone = defaultZone();
+		return ageInYears(toEpochDay(birthDate.getTime(), zone), toEpochDay(asOfDate.getTime(), zone));
+	}
+	
+	/**
+     * Calculates age in whole years using the specified as of date, taking
+     * the calendar dates of both in the specified time zone
+     * 
+     * Returns null if birthDate or asOfDate is null
+     * 
+     * {talendTypes} Integer
+     * 
+     * {Category} BRules
+     * 
+     * {param} date(birthDate) input: the date of birth
+     * {param} date(asOfDate) input: date used for comparison
+     * {param} string("America/New_York") zoneId: time zone id
+     * 
+     * @param birthDate date of birth
+     * @param asOfDate date of comparison (instead of today)
+     * @param zoneId time zone id, for example "UTC"
+     * @return whole years of age
+     * @since 1.6.0
+     */		
+	public static Integer ageInYears(Date birthDate, Date asOfDate, String zoneId) {
+		
+		if( birthDate == null || asOfDate == null ) {
+			return null;
+		}
+		
+		DateTimeZone zone = zone(zoneId);
+		return ageInYears(toEpochDay(birthDate.getTime(), zone), toEpochDay(asOfDate.getTime(), zone));
+	}
+	
+	/**
+     * Calculates age in whole years as of a precomputed day, for example a 
+     * job run date computed once with toEpochDay()
+     * 
+     * Returns null if birthDate is null
+     * 
+     * {talendTypes} Integer
+     * 
+     * {Category} BRules
+     * 
+     * {param} date(birthDate) input: the date of birth
+     * {param} long(asOfEpochDay) input: days since 1970-01-01 of the as of date
+     * 
+     * {example} ageInYears(birthDate, toEpochDay(runDate))
+     * 
+     * @param birthDate date of birth
+     * @param asOfEpochDay as of date in days since 1970-01-01
+     * @return whole years of age
+     * @since 1.6.0
+     */		
+	public static Integer ageInYears(Date birthDate, long asOfEpochDay) {
+		if( birthDate == null ) {
+			return null;
+		}
+		return ageInYears(toEpochDay(birthDate.getTime(), defaultZone()), asOfEpochDay);
+	}
+	
+	/**
+     * Calculates age in whole years as of a precomputed day, taking the 
+     * calendar date of birth in the specified time zone
+     * 
+     * Returns null if birthDate is null
+     * 
+     * {talendTypes} Integer
+     * 
+     * {Category} BRules
+     * 
+     * {param} date(birthDate) input: the date of birth
+     * {param} long(asOfEpochDay) input: days since 1970-01-01 of the as of date
+     * {param} string("UTC") zoneId: time zone id
+     * 
+     * @param birthDate date of birth
+     * @param asOfEpochDay as of date in days since 1970-01-01
+     * @param zoneId time zone id, for example "UTC"
+     * @return whole years of age
+     * @since 1.6.0
+     */		
+	public static Integer ageInYears(Date birthDate, long asOfEpochDay, String zoneId) {
+		if( birthDate == null ) {
+			return null;
+		}
+		return ageInYears(toEpochDay(birthDate.getTime(), zone(zoneId)), asOfEpochDay);
+	}
+	
+	/**
+     * Calculates age in whole years between two days given as days since 
+     * 1970-01-01
+     * 
+     * A birthday of February 29 is reached on February 28 in non-leap 
+     * years.  Negative if asOfEpochDay is before birthEpochDay.
+     * 
+     * {talendTypes} Integer
+     * 
+     * {Category} BRules
+     * 
+     * {param} long(birthEpochDay) input: days since 1970-01-01 of the date of birth
+     * {param} long(asOfEpochDay) input: days since 1970-01-01 of the as of date
+     * 
+     * {example} ageInYears(3690L, 16109L) # 34
+     * 
+     * @param birthEpochDay date of birth in days since 1970-01-01
+     * @param asOfEpochDay as of date in days since 1970-01-01
+     * @return whole years of age
+     * @since 1.6.0
+     */		
+	public static int ageInYears(long birthEpochDay, long asOfEpochDay) {
+		
+		if( asOfEpochDay < birthEpochDay ) {
+			return -ageInYears(asOfEpochDay, birthEpochDay);
+		}
+		
+		// same year arithmetic as Joda's Years.yearsBetween()
+		int asOfYear = yearOf(asOfEpochDay);
+		int birthYear = yearOf(birthEpochDay);
+		long asOfRem = asOfEpochDay - daysFromCivil(asOfYear, 1, 1);
+		long birthRem = birthEpochDay - daysFromCivil(birthYear, 1, 1);
+		
+		if( birthRem >= FEB_29_DAY_OF_YEAR ) {
+			if( isLeapYear(birthYear) ) {
+				if( !isLeapYear(asOfYear) ) {
+					birthRem--;
+				}
+			}
+			else if( asOfRem >= FEB_29_DAY_OF_YEAR && isLeapYear(asOfYear) ) {
+				asOfRem--;
+			}
+		}
+		
+		int age = asOfYear - birthYear;
+		if( asOfRem < birthRem ) {
+			age--;
+		}
+		return age;
+	}
+	
+	/**
+     * Calculates age in whole years based on today's date from a date of 
+     * birth string in the specified format
+     * 
+     * Returns null if the string is empty or doesn't match the pattern
+     * 
+     * {talendTypes} Integer
+     * 
+     * {Category} BRules
+     * 
+     * {param} string("1980-02-08") birthDate: the date of birth
+     * {param} string("yyyy-MM-dd") pattern: format of birthDate
+     * 
+     * {example} ageInYears("1980-02-08", "yyyy-MM-dd") # 34 as of 2014-02-08
+     * 
+     * @param birthDate date of birth
+     * @param pattern date format, for example "yyyy-MM-dd" or "MM/dd/yyyy"
+     * @return whole years of age
+     * @since 1.6.0
+     */		
+	public static Integer ageInYears(String birthDate, String pattern) {
+		long birthDay = parseEpochDay(birthDate, pattern);
+		if( birthDay == NOT_A_DAY ) {
+			return null;
+		}
+		DateTimeZone zone = defaultZone();
+		return ageInYears(birthDay, toEpochDay(System.currentTimeMillis(), zone));
+	}
+	
+	/**
+     * isDate: true if the string is a valid date in the specified format
+     * 
+     * Formats follow java.text.SimpleDateFormat letters (yyyy, MM, dd, HH,
+     * mm, ss, SSS, MMM, EEE, a, Z); parsing is strict, so "2014-02-30" is
+     * not a date.  Formatters are cached by pattern and "yyyy-MM-dd" is 
+     * checked without a formatter.
+     * 
+     * {talendTypes} String
+     * 
+     * {Category} BRules
+     * 
+     * {param} string("2014-02-08") input: the string to check
+     * {param} string("yyyy-MM-dd") pattern: the date format
+     * 
+     * {example} isDate("2014-02-08", "yyyy-MM-dd") # true
+     * {example} isDate("02/30/2014", "MM/dd/yyyy") # false
+     * {example} isDate(null, "yyyy-MM-dd") # false
+     * 
+     * @since 1.6.0
+     */
+	public static boolean isDate(String _s, String _pattern) {
+		return parseMillis(_s, _pattern) != null;
+	}
+	
+	/**
+     * toDate: parse a string in the specified format to a date in the 
+     * default time zone
+     * 
+     * Returns null if the string is empty or not a valid date in the format
+     * 
+     * {talendTypes} Date
+     * 
+     * {Category} BRules
+     * 
+     * {param} string("2014-02-08") input: the string to parse
+     * {param} string("yyyy-MM-dd") pattern: the date format
+     * 
+     * {example} toDate("2014-02-08", "yyyy-MM-dd") # Feb 8, 2014 00:00
+     * 
+     * @since 1.6.0
+     */
+	public static Date toDate(String _s, String _pattern) {
+		Long millis = parseMillis(_s, _pattern);
+		return (millis == null) ? null : new Date(millis);
+	}
+	
+	private static Long parseMillis(String _s, String _pattern) {
+		if( StringUtils.isEmpty(_s) ) return null;
+		if( ISO_DATE_PATTERN.equals(_pattern) ) {
+			long day = parseISODate(_s);
+			if( day != NOT_A_DAY ) {
+				// a midnight in a daylight saving gap moves forward, as LocalDate.toDate() does
+				return defaultZone().convertLocalToUTC(day * MILLIS_PER_DAY, false);
+			}
+		}
+		DateTimeFormatter f = formatter(_pattern);
+		try {
+			return f.parseMillis(_s);
+		}
+		catch(IllegalInstantException exc) {
+			return f.parseLocalDateTime(_s).toDate().getTime();
+		}
+		catch(IllegalArgumentException exc) {
+			return null;
+		}
+	}
+	
+	/**
+	 * @return days since 1970-01-01 of the date, or NOT_A_DAY
+	 */
+	private static long parseEpochDay(String _s, String _pattern) {
+		if( StringUtils.isEmpty(_s) ) return NOT_A_DAY;
+		if( ISO_DATE_PATTERN.equals(_pattern) ) {
+			long day = parseISODate(_s);
+			if( day != NOT_A_DAY ) {
+				return day;
+			}
+		}
+		DateTimeFormatter f = formatter(_pattern);
+		try {
+			LocalDate ld = f.parseLocalDate(_s);
+			return daysFromCivil(ld.getYear(), ld.getMonthOfYear(), ld.getDayOfMonth());
+		}
+		catch(IllegalArgumentException exc) {
+			return NOT_A_DAY;
+		}
+	}
+	
+	/**
+	 * Parses exactly yyyy-MM-dd; other forms the formatter accepts, such as
+	 * single-digit months, return NOT_A_DAY and are left to the formatter
+	 */
+	private static long parseISODate(String _s) {
+		if( _s.length() != 10 || _s.charAt(4) != '-' || _s.charAt(7) != '-' ) {
+			return NOT_A_DAY;
+		}
+		int y = digits(_s, 0, 4);
+		int m = digits(_s, 5, 7);
+		int d = digits(_s, 8, 10);
+		if( y < 0 || m < 1 || m > 12 || d < 1 ) {
+			return NOT_A_DAY;
+		}
+		int monthLength = (m == 2) ? (isLeapYear(y) ? 29 : 28) : 30 + ((m + (m >> 3)) & 1);
+		if( d > monthLength ) {
+			return NOT_A_DAY;
+		}
+		return daysFromCivil(y, m, d);
+	}
+	
+	/**
+	 * @return the non-negative value of the ASCII digits, or -1
+	 */
+	private static int digits(String _s, int _begin, int _end) {
+		int v = 0;
+		for( int i=_begin; i<_end; i++ ) {
+			char c = _s.charAt(i);
+			if( c < '0' || c > '9' ) return -1;
+			v = v * 10 + (c - '0');
+		}
+		return v;
+	}
+	
+	/**
+	 * Joda formatters are immutable and thread-safe; the cache keeps the 
+	 * MAX_CACHED_FORMATTERS most recently used patterns
+	 */
+	private static DateTimeFormatter formatter(String _pattern) {
+		if( StringUtils.isEmpty(_pattern) ) {
+			throw new IllegalArgumentException("a date pattern is required");
+		}
+		DateTimeFormatter f = FORMATTERS.get(_pattern);
+		if( f == null ) {
+			f = DateTimeFormat.forPattern(_pattern);
+			FORMATTERS.put(_pattern, f);
+		}
+		return f;
+	}
+	
+	/**
+     * Converts a date to days since 1970-01-01 in the default time zone
+     * 
+     * {talendTypes} Long
+     * 
+     * {Category} BRules
+     * 
+     * {param} date(date) input: the date to convert
+     * 
+     * {example} toEpochDay(TalendDate.parseDate("yyyy-MM-dd", "2014-02-08")) # 16109
+     * 
+     * @param date date to convert
+     * @return days since 1970-01-01 or null if date is null
+     * @since 1.6.0
+     */		
+	public static Long toEpochDay(Date date) {
+		if( date == null ) {
+			return null;
+		}
+		return toEpochDay(date.getTime(), defaultZone());
+	}
+	
+	/**
+     * Converts a date to days since 1970-01-01 in the specified time zone
+     * 
+     * {talendTypes} Long
+     * 
+     * {Category} BRules
+     * 
+     * {param} date(date) input: the date to convert
+     * {param} string("UTC") zoneId: time zone id
+     * 
+     * @param date date to convert
+     * @param zoneId time zone id, for example "UTC"
+     * @return days since 1970-01-01 or null if date is null
+     * @since 1.6.0
+     */		
+	public static Long toEpochDay(Date date, String zoneId) {
+		if( date == null ) {
+			return null;
+		}
+		return toEpochDay(date.getTime(), zone(zoneId));
+	}
+	
+	static long toEpochDay(long _millis, DateTimeZone _zone) {
+		long local = _millis + _zone.getOffset(_millis);
+		long day = local / MILLIS_PER_DAY;
+		if( local % MILLIS_PER_DAY < 0 ) {
+			day--;
+		}
+		return day;
+	}
+	
+	/**
+	 * Days since 1970-01-01 of a proleptic Gregorian date
+	 */
+	static long daysFromCivil(long _y, int _m, int _d) {
+		_y -= (_m <= 2) ? 1 : 0;
+		long era = ((_y >= 0) ? _y : _y - 399) / 400;
+		long yoe = _y - era * 400;
+		long doy = (153 * (_m + ((_m > 2) ? -3 : 9)) + 2) / 5 + _d - 1;
+		long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+		return era * 146097 + doe - 719468;
+	}
+	
+	/**
+	 * Proleptic Gregorian year of a day since 1970-01-01
+	 */
+	static int yearOf(long _epochDay) {
+		long z = _epochDay + 719468;
+		long era = ((z >= 0) ? z : z - 146096) / 146097;
+		long doe = z - era * 146097;
+		long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+		long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+		long mp = (5 * doy + 2) / 153;
+		return (int)(yoe + era * 400 + ((mp >= 10) ? 1 : 0));
+	}
+	
+	static boolean isLeapYear(int _y) {
+		return (_y & 3) == 0 && (_y % 100 != 0 || _y % 400 == 0);
+	}
+	
+	/**
+	 * Zone offsets come from Joda's time zone data, which the previous 
+	 * Joda-based implementation used, so results are unchanged for dates 
+	 * where the JDK's historical data differs
+	 */
+	private static DateTimeZone defaultZone() {
+		return DateTimeZone.getDefault();
+	}
+	
+	private static DateTimeZone zone(String _zoneId) {
+		if( StringUtils.isEmpty(_zoneId) ) {
+			return defaultZone();
+		}
+		DateTimeZone zone = ZONES.get(_zoneId);
+		if( zone == null ) {
+			zone = DateTimeZone.forID(_zoneId);
+			ZONES.putIfAbsent(_zoneId, zone);
+		}
+		return zone;
+	}
+
+	/**
+	 * For internal use only
+	 * 
+	 * Joda Time classes aren't exposed to the calling Talend jobs because of
+	 * library dependency management
+	 * 
+     * @param birthDate date of birth
+     * @param asOfDate date of comparison (instead of today)
+     * @return whole years of age
+	 */
+	static Integer ageInYears(LocalDate birthDate, LocalDate asOfDate) {
+
+		if( birthDate == null || asOfDate == null ) {
+			return null;
+		}
+		
+		Years age = Years.yearsBetween(birthDate, asOfDate);
+		
+		return age.getYears();		
+	}
+	
+	/**
+	 * Forms a comma-separated list given the input java.util.List
+	 * 
+	 * Handles different types
+	 * 
+	 * Nulls are skipped, for example [A, null, B] -> A,,B
+	 * 
+	 * {talendTypes} String
+	 * 
+	 * {Category} BRules
+	 * 
+     * {param} list(inputList) input: the list to convert
+     * 
+	 * @param inputList list of objects of any time
+	 * @return empty string or list of values separated by comma
+	 */
+	public static String listToString(List<?> inputList) {
+		return listToString(inputList, DEFAULT_LIST_TO_STRING_DELIMITER);
+	}
+	
+	/**
+	 * Forms a comma-separated list given the input java.util.List using the 
+	 * specified delimeter
+	 * 
+	 * Handles different types
+	 * 
+	 * Nulls are skipped, for example [A, null, B] -> A,,B
+	 * 
+	 * {talendTypes} String
+	 * 
+	 * {Category} BRules
+	 * 
+     * {param} list(inputList) input: the list to convert
+     * {param} string(delimiter) input: delimiter to used in string separating
+     * items
+     * 
+	 * @param inputList list of objects of any time
+	 * @return empty string or list of values separated by delimiter 
+	 * 
+	 */
+	public static String listToString(List<?> inputList, String delimiter) {
+		return listToString(inputList, delimiter, null);
+	}
+	
+	/**
+	 * Forms a comma-separated list given the input java.util.List
+	 * 
+	 * Handles different types
+	 * 
+	 * Nulls are skipped, for example [A, null, B] -> A,,B
+	 * 
+	 * {talendTypes} String
+	 * 
+	 * {Category} BRules
+	 * 
+     * {param} list(inputList) input: the list to convert
+     * {param} string(delimiter) input: delimiter to used in string separating
+     * items
+     * {param} string(escapeString) input: string to wrap each item
+     * 
+	 * @param inputList list of objects of any time
+	 * @param escapeString String added to start and end of each element
+	 * @return empty string or list of values separated by comma
+	 */
+	public static String listToString(List<?> inputList, String delimiter, String escapeString) {
+
+		if( inputList == null || inputList.isEmpty() ) {
+			return "";
+		}
+		
+		int escapeLength = (escapeString == null) ? 0 : 2 * escapeString.length();
+		StringBuilder sb = acquireBuilder(estimateLength(delimiter, escapeLength, inputList));
+		
+		boolean initialized = false;
+		for( Object obj : inputList ) {
+			
+			if( initialized ) {
+				sb.append(delimiter);
+			} else {
+				initialized = true;
+			}
+
+			if( obj != null ) {
+				if( escapeString == null ) {
+					sb.append( String.valueOf(obj) );					
+				} else {	
+					sb.append(escapeString).append( String.valueOf(obj) ).append(escapeString);
+				}
+			}
+		}
+		
+		return releaseBuilder(sb);
+	}
+	
+	/**
+	 * Writes the elements of the input java.util.List to the output, 
+	 * separated by the delimiter and wrapped in the optional escape string,
+	 * without building an intermediate String
+	 * 
+	 * Nulls are skipped, for example [A, null, B] -> A,,B
+	 * 
+	 * @param _out destination, for example a Writer
+	 * @param inputList list of objects of any type
+	 * @param delimiter delimiter written between elements
+	 * @param escapeString String added to start and end of each element; may be null
+	 * @return _out
+	 * @throws IOException if _out throws
+	 * @since 1.6.0
+	 */
+	public static <A extends Appendable> A listToStringTo(A _out, List<?> inputList, String delimiter, String escapeString) throws IOException {
+
+		if( inputList == null ) {
+			return _out;
+		}
+		
+		boolean initialized = false;
+		for( Object obj : inputList ) {
+			
+			if( initialized ) {
+				_out.append(delimiter);
+			} else {
+				initialized = true;
+			}
+
+			if( obj != null ) {
+				if( escapeString != null ) {
+					_out.append(escapeString);
+				}
+				appendObject(_out, obj);
+				if( escapeString != null ) {
+					_out.append(escapeString);
+				}
+			}
+		}
+		
+		return _out;
+	}
+	
+	/**
+	 * Writes the elements of the input java.util.List to the output, 
+	 * separated by the delimiter
+	 * 
+	 * @param _out destination, for example a Writer
+	 * @param inputList list of objects of any type
+	 * @param delimiter delimiter written between elements
+	 * @return _out
+	 * @throws IOException if _out throws
+	 * @since 1.6.0
+	 */
+	public static <A extends Appendable> A listToStringTo(A _out, List<?> inputList, String delimiter) throws IOException {
+		return listToStringTo(_out, inputList, delimiter, null);
+	}
+	
+    /**
+     * csvField: encode a value as an RFC 4180 CSV field
+     * 
+     * The value is wrapped in double quotes, with embedded quotes doubled, 
+     * only if it contains a comma, a double quote, CR, or LF; otherwise the
+     * value's string is returned as is.  null is returned as "".
+     * 
+     * {talendTypes} String
+     * 
+     * {Category} BRules
+     * 
+     * {param} object("a,b") input: the value to encode
+     * 
+     * {example} csvField("a,b") # "\"a,b\""
+     * {example} csvField("say \"hi\"") # "\"say \"\"hi\"\"\""
+     * {example} csvField("abc") # "abc"
+     * 
+     * @since 1.6.0
+     */
+	public static String csvField(Object _value) {
+		return csvField(_value, CSV_DELIMITER);
+	}
+	
+    /**
+     * csvField: encode a value as an RFC 4180 CSV field using the specified
+     * delimiter
+     * 
+     * {talendTypes} String
+     * 
+     * {Category} BRules
+     * 
+     * {param} object("a|b") input: the value to encode
+     * {param} char('|') delim: the field delimiter
+     * 
+     * {example} csvField("a|b", '|') # "\"a|b\""
+     * 
+     * @since 1.6.0
+     */
+	public static String csvField(Object _value, char _delim) {
+		if( _value == null ) return "";
+		String s = _value.toString();
+		if( !csvNeedsQuotes(s, _delim) ) return s;
+		StringBuilder sb = new StringBuilder(s.length() + 8);
+		appendCSVQuoted(sb, s);
+		return sb.toString();
+	}
+	
+    /**
+     * csv: join values into an RFC 4180 CSV line, quoting fields as needed
+     * 
+     * Unlike comma, embedded commas, quotes, and line breaks are escaped.
+     * Nulls are written as empty fields.
+     * 
+     * {talendTypes} String
+     * 
+     * {Category} BRules
+     * 
+     * {param} object() input: a variable number of values to join
+     * 
+     * {example} csv("one", "t,wo", null)  # "one,\"t,wo\","
+     * 
+     * @since 1.6.0
+     */
+	public static String csv(Object..._values) {
+		return csvJoin(CSV_DELIMITER, _values);
+	}
+	
+    /**
+     * csvJoin: join values into an RFC 4180 style line using the specified
+     * delimiter, quoting fields as needed
+     * 
+     * {talendTypes} String
+     * 
+     * {Category} BRules
+     * 
+     * {param} char('|') delim: the field delimiter
+     * {param} object() input: a variable number of values to join
+     * 
+     * {example} csvJoin('|', "one", "t|wo")  # "one|\"t|wo\""
+     * 
+     * @since 1.6.0
+     */
+	public static String csvJoin(char _delim, Object..._values) {
+		if( _values == null || _values.length == 0 ) return "";
+		StringBuilder sb = acquireBuilder(estimateLength(",", 2, _values));
+		try {
+			csvJoinTo(sb, _delim, _values);
+		}
+		catch(IOException impossible) {
+			throw new IllegalStateException(impossible);
+		}
+		return releaseBuilder(sb);
+	}
+	
+	/**
+	 * Writes values as an RFC 4180 style line to the output, quoting fields
+	 * as needed
+	 * 
+	 * @param _out destination, for example a Writer
+	 * @param _delim field delimiter
+	 * @param _values values to write; nulls are written as empty fields
+	 * @return _out
+	 * @throws IOException if _out throws
+	 * @since 1.6.0
+	 */
+	public static <A extends Appendable> A csvJoinTo(A _out, char _delim, Object..._values) throws IOException {
+		if( _values == null ) return _out;
+		for( int i=0; i<_values.length; i++ ) {
+			if( i > 0 ) {
+				_out.append(_delim);
+			}
+			if( _values[i] != null ) {
+				String s = _values[i].toString();
+				if( csvNeedsQuotes(s, _delim) ) {
+					appendCSVQuoted(_out, s);
+				}
+				else {
+					_out.append(s);
+				}
+			}
+		}
+		return _out;
+	}
+	
+    /**
+     * csvSplit: split an RFC 4180 CSV line into fields
+     * 
+     * The result records field positions only; a field's String is created
+     * when it is accessed.  Quoted fields are unquoted and doubled quotes
+     * collapsed on access.
+     * 
+     * {talendTypes} Object
+     * 
+     * {Category} BRules
+     * 
+     * {param} string("one,\"t,wo\",three") line: the line to split
+     * 
+     * {example} csvSplit("one,\"t,wo\",three").get(1) # "t,wo"
+     * 
+     * @since 1.6.0
+     */
+	public static CSVFields csvSplit(String _line) {
+		return new CSVFields(CSV_DELIMITER).split(_line);
+	}
+	
+    /**
+     * csvSplit: split an RFC 4180 style line into fields using the specified
+     * delimiter
+     * 
+     * {talendTypes} Object
+     * 
+     * {Category} BRules
+     * 
+     * {param} string("one|two") line: the line to split
+     * {param} char('|') delim: the field delimiter
+     * 
+     * {example} csvSplit("one|two", '|').size() # 2
+     * 
+     * @since 1.6.0
+     */
+	public static CSVFields csvSplit(String _line, char _delim) {
+		return new CSVFields(_delim).split(_line);
+	}
+	
+	private static boolean csvNeedsQuotes(String _s, char _delim) {
+		for( int i=0; i<_s.length(); i++ ) {
+			char c = _s.charAt(i);
+			if( c == _delim || c == '"' || c == '\r' || c == '\n' ) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	private static void appendCSVQuoted(Appendable _out, String _s) throws IOException {
+		_out.append('"');
+		int from = 0;
+		for( int i=0; i<_s.length(); i++ ) {
+			if( _s.charAt(i) == '"' ) {
+				_out.append(_s, from, i + 1).append('"');
+				from = i + 1;
+			}
+		}
+		_out.append(_s, from, _s.length()).append('"');
+	}
+	
+	private static void appendCSVQuoted(StringBuilder _sb, String _s) {
+		try {
+			appendCSVQuoted((Appendable)_sb, _s);
+		}
+		catch(IOException impossible) {
+			throw new IllegalStateException(impossible);
+		}
+	}
+	
+	/**
+	 * The fields of one delimited line, stored as offsets into the line
+	 * 
+	 * split() may be called repeatedly on the same instance to reuse its 
+	 * arrays across lines.  Not thread-safe.
+	 * 
+	 * @since 1.6.0
+	 */
+	public static class CSVFields extends AbstractList<String> {
+		
+		private final static int PLAIN = 0;
+		private final static int QUOTED = 1;
+		private final static int ESCAPED = 2;
+		
+		private final char delim;
+		private String line;
+		private int size;
+		private int[] starts = new int[16];
+		private int[] ends = new int[16];
+		private byte[] kinds = new byte[16];
+		
+		public CSVFields() {
+			this(CSV_DELIMITER);
+		}
+		
+		public CSVFields(char _delim) {
+			if( _delim == '"' || _delim == '\r' || _delim == '\n' ) {
+				throw new IllegalArgumentException("delimiter cannot be a quote or line break");
+			}
+			this.delim = _delim;
+		}
+		
+		/**
+		 * Parses a line into this instance, replacing any previous fields
+		 * 
+		 * A null line has no fields; an empty line has one empty field.
+		 * Characters between a closing quote and the next delimiter are 
+		 * ignored.
+		 * 
+		 * @param _line the line to split
+		 * @return this
+		 */
+		public CSVFields split(String _line) {
+			line = _line;
+			size = 0;
+			if( _line == null ) return this;
+			
+			int len = _line.length();
+			int pos = 0;
+			while( true ) {
+				int i;
+				if( pos < len && _line.charAt(pos) == '"' ) {
+					int start = pos + 1;
+					int kind = QUOTED;
+					i = start;
+					while( i < len ) {
+						if( _line.charAt(i) == '"' ) {
+							if( i + 1 < len && _line.charAt(i + 1) == '"' ) {
+								kind = ESCAPED;
+								i += 2;
+								continue;
+							}
+							break;
+						}
+						i++;
+					}
+					add(start, i, kind);
+					while( i < len && _line.charAt(i) != delim ) {
+						i++;
+					}
+				}
+				else {
+					i = _line.indexOf(delim, pos);
+					if( i < 0 ) i = len;
+					add(pos, i, PLAIN);
+				}
+				if( i >= len ) break;
+				pos = i + 1;
+			}
+			return this;
+		}
+		
+		private void add(int _start, int _end, int _kind) {
+			if( size == starts.length ) {
+				starts = Arrays.copyOf(starts, size * 2);
+				ends = Arrays.copyOf(ends, size * 2);
+				kinds = Arrays.copyOf(kinds, size * 2);
+			}
+			starts[size] = _start;
+			ends[size] = _end;
+			kinds[size] = (byte)_kind;
+			size++;
+		}
+		
+		@Override
+		public int size() {
+			return size;
+		}
+		
+		/**
+		 * @param _i field index
+		 * @return the decoded field, created on each call
+		 */
+		@Override
+		public String get(int _i) {
+			checkIndex(_i);
+			if( kinds[_i] != ESCAPED ) {
+				return line.substring(starts[_i], ends[_i]);
+			}
+			StringBuilder sb = new StringBuilder(ends[_i] - starts[_i]);
+			for( int j=starts[_i]; j<ends[_i]; j++ ) {
+				char c = line.charAt(j);
+				sb.append(c);
+				if( c == '"' ) j++;
+			}
+			return sb.toString();
+		}
+		
+		/**
+		 * @param _i field index
+		 * @return offset in the line of the field's first character, inside
+		 * any quotes
+		 */
+		public int offset(int _i) {
+			checkIndex(_i);
+			return starts[_i];
+		}
+		
+		/**
+		 * @param _i field index
+		 * @return number of characters the field spans in the line, inside 
+		 * any quotes; doubled quotes count as two
+		 */
+		public int length(int _i) {
+			checkIndex(_i);
+			return ends[_i] - starts[_i];
+		}
+		
+		/**
+		 * @param _i field index
+		 * @return true if the field was wrapped in quotes; distinguishes ""
+		 * from an absent value
+		 */
+		public boolean isQuoted(int _i) {
+			checkIndex(_i);
+			return kinds[_i] != PLAIN;
+		}
+		
+		/**
+		 * @param _i field index
+		 * @return true if the field has no characters
+		 */
+		public boolean isEmpty(int _i) {
+			checkIndex(_i);
+			return starts[_i] == ends[_i];
+		}
+		
+		/**
+		 * Compares a field to a string without creating the field's String
+		 * 
+		 * @param _i field index
+		 * @param _s string to compare
+		 * @return true if the decoded field equals _s
+		 */
+		public boolean fieldEquals(int _i, String _s) {
+			checkIndex(_i);
+			if( _s == null ) return false;
+			if( kinds[_i] == ESCAPED ) return get(_i).equals(_s);
+			return ends[_i] - starts[_i] == _s.length() && line.regionMatches(starts[_i], _s, 0, _s.length());
+		}
+		
+		/**
+		 * @return the line last passed to split()
+		 */
+		public String getLine() {
+			return line;
+		}
+		
+		private void checkIndex(int _i) {
+			if( _i < 0 || _i >= size ) {
+				throw new IndexOutOfBoundsException("field " + _i + " of " + size);
+			}
+		}
+	}
+	
+	/**
+	 * For internal use only
+	 * 
+	 * Takes this thread's reusable builder, or a new one if it is already in
+	 * use further up the stack (for example, by an element's toString())
+	 * 
+	 * @param _capacity estimated length of the result
+	 * @return an empty builder; pass to releaseBuilder() when done
+	 */
+	static StringBuilder acquireBuilder(int _capacity) {
+		StringBuilder sb = BUILDER.get();
+		if( sb == null ) {
+			return new StringBuilder(Math.max(_capacity, 16));
+		}
+		BUILDER.set(null);
+		sb.ensureCapacity(_capacity);
+		return sb;
+	}
+	
+	/**
+	 * For internal use only
+	 * 
+	 * Returns the builder to this thread unless it has grown past 
+	 * MAX_RETAINED_BUILDER_CAPACITY
+	 * 
+	 * @param _sb builder from acquireBuilder()
+	 * @return the builder's contents
+	 */
+	static String releaseBuilder(StringBuilder _sb) {
+		String s = _sb.toString();
+		if( _sb.capacity() <= MAX_RETAINED_BUILDER_CAPACITY ) {
+			_sb.setLength(0);
+			BUILDER.set(_sb);
+		}
+		return s;
+	}
+	
+	/**
+	 * Estimates joined length from the CharSequence elements; other types
+	 * are assumed to be short
+	 */
+	private static int estimateLength(String _delim, int _perElement, Object[] _objects) {
+		if( _objects == null ) return 0;
+		return estimateLength(_delim, _perElement, Arrays.asList(_objects));
+	}
+	
+	private static int estimateLength(String _delim, int _perElement, Iterable<?> _objects) {
+		int delimLength = (_delim == null) ? 4 : _delim.length();
+		long length = 0;
+		for( Object obj : _objects ) {
+			length += delimLength + _perElement;
+			if( obj instanceof CharSequence ) {
+				length += ((CharSequence)obj).length();
+			}
+			else if( obj != null ) {
+				length += ESTIMATED_OBJECT_LENGTH;
+			}
+		}
+		return (int)Math.min(length, Integer.MAX_VALUE - 8);
+	}
+
+	/**
+	 * Creates an empty rule set definition over the named fields
+	 * 
+	 * Rules are added with RuleSet.rule() and compiled once with 
+	 * RuleSet.compile(); the compiled rule set then validates each row in a
+	 * single pass
+	 * 
+	 * {example} ruleSet("phone", "email").rule("isPhoneNum", "phone", "US").compile()
+	 * 
+	 * @param _fieldNames names of the row columns, in row order
+	 * @return an empty rule set definition
+	 * @since 1.6.0
+	 */
+	public static RuleSet ruleSet(String..._fieldNames) {
+		return new RuleSet(_fieldNames);
+	}
+
+	/**
+	 * A declarative list of rules over the fields of a row
+	 * 
+	 * Each rule names a BRules routine, the field (or comma-separated fields
+	 * for all, xor, none, atLeast, and exactly) it applies to, and the 
+	 * routine's remaining parameters as strings.  Supported routines are
+	 * isPhoneNum, isEmail, isPostalCode, isIBAN, isCreditCard, isSSN, inList,
+	 * matches, find, isBlank, notBlank, okChars, isXML, isJSON, hasJSONPath, 
+	 * all, xor, none, atLeast, and exactly.
+	 * 
+	 * A definition is not thread-safe; the CompiledRuleSet it produces is.
+	 * 
+	 * @since 1.6.0
+	 */
+	public static class RuleSet {
+		
+		private final List<String> fieldNames;
+		private final List<String[]> rules = new ArrayList<String[]>();
+		
+		RuleSet(String..._fieldNames) {
+			if( _fieldNames == null || _fieldNames.length == 0 ) {
+				throw new IllegalArgumentException(ERROR_MESSAGE_RULESET_FIELDS);
+			}
+			this.fieldNames = Arrays.asList(_fieldNames.clone());
+		}
+		
+		/**
+		 * Adds a rule
+		 * 
+		 * @param _routine name of the BRules routine, for example "okChars"
+		 * @param _fields field name or comma-separated field names
+		 * @param _params routine parameters following the value, for example "Cp1252"
+		 * @return this definition
+		 */
+		public RuleSet rule(String _routine, String _fields, String..._params) {
+			if( StringUtils.isEmpty(_routine) || StringUtils.isEmpty(_fields) ) {
+				throw new IllegalArgumentException(ERROR_MESSAGE_RULESET_RULE);
+			}
+			String[] r = new String[2 + ((_params==null)?0:_params.length)];
+			r[0] = _routine;
+			r[1] = _fields;
+			if( _params != null ) {
+				System.arraycopy(_params, 0, r, 2, _params.length);
+			}
+			rules.add(r);
+			return this;
+		}
+		
+		public List<String> getFieldNames() {
+			return Collections.unmodifiableList(fieldNames);
+		}
+		
+		public int size() {
+			return rules.size();
+		}
+		
+		/**
+		 * Resolves field names and parameters and builds the evaluator
+		 * 
+		 * Rules with the same routine and parameters share one checker, so 
+		 * parsers and encoders are created once per compiled set rather than
+		 * once per rule
+		 * 
+		 * @return an immutable, thread-safe evaluator
+		 * @throws IllegalArgumentException for an unknown routine, field, or 
+		 * bad parameter
+		 */
+		public CompiledRuleSet compile() {
+
+			if( rules.size() > MAX_RULES ) {
+				throw new IllegalArgumentException(ERROR_MESSAGE_RULESET_SIZE);
+			}
+			
+			Map<String, Check> checks = new HashMap<String, Check>();
+			
+			Check[] compiledChecks = new Check[rules.size()];
+			int[][] compiledFields = new int[rules.size()][];
+			String[] descriptions = new String[rules.size()];
+
+			for( int i=0; i<rules.size(); i++ ) {
+				String[] r = rules.get(i);
+				String[] params = Arrays.copyOfRange(r, 2, r.length);
+				
+				String key = r[0] + '\u0000' + join("\u0000", (Object[])params);
+				Check check = checks.get(key);
+				if( check == null ) {
+					check = Check.create(r[0], params);
+					checks.put(key, check);
+				}
+				
+				String[] names = StringUtils.split(r[1], ',');
+				if( !check.multiField() && names.length != 1 ) {
+					throw new IllegalArgumentException(r[0] + " takes a single field");
+				}
+				int[] fields = new int[names.length];
+				for( int j=0; j<names.length; j++ ) {
+					fields[j] = fieldNames.indexOf(names[j].trim());
+					if( fields[j] < 0 ) {
+						throw new IllegalArgumentException("unknown field '" + names[j].trim() + "'");
+					}
+				}
+
+				compiledChecks[i] = check;
+				compiledFields[i] = fields;
+				descriptions[i] = r[0] + "(" + r[1] + ((params.length>0)?"; " + join(",", (Object[])params):"") + ")";
+			}
+			
+			return new CompiledRuleSet(fieldNames.size(), compiledChecks, compiledFields, descriptions);
+		}
+	}
+	
+	/**
+	 * A flat, immutable evaluator produced by RuleSet.compile()
+	 * 
+	 * evaluate() returns a bitmap in which bit i is on if rule i passed
+	 * 
+	 * @since 1.6.0
+	 */
+	public static class CompiledRuleSet {
+		
+		private final int numFields;
+		private final Check[] checks;
+		private final int[][] fields;
+		private final String[] descriptions;
+		private final long passMask;
+		
+		CompiledRuleSet(int _numFields, Check[] _checks, int[][] _fields, String[] _descriptions) {
+			this.numFields = _numFields;
+			this.checks = _checks;
+			this.fields = _fields;
+			this.descriptions = _descriptions;
+			this.passMask = (_checks.length == MAX_RULES)?-1L:((1L << _checks.length) - 1);
+		}
+		
+		/**
+		 * Runs every rule against the row
+		 * 
+		 * @param _row field values in the order given to ruleSet()
+		 * @return pass/fail bitmap; bit i is on if rule i passed
+		 */
+		public long evaluate(Object..._row) {
+			if( _row == null || _row.length != numFields ) {
+				throw new IllegalArgumentException(ERROR_MESSAGE_RULESET_ROW);
+			}
+			long bitmap = 0L;
+			for( int i=0; i<checks.length; i++ ) {
+				if( checks[i].test(_row, fields[i]) ) {
+					bitmap |= (1L << i);
+				}
+			}
+			return bitmap;
+		}
+		
+		/**
+		 * @param _row field values in the order given to ruleSet()
+		 * @return true if every rule passed
+		 */
+		public boolean isValid(Object..._row) {
+			return evaluate(_row) == passMask;
+		}
+		
+		/**
+		 * @return the bitmap returned by evaluate() when every rule passes
+		 */
+		public long getPassMask() {
+			return passMask;
+		}
+		
+		public int size() {
+			return checks.length;
+		}
+
+		/**
+		 * @param _bitmap result of evaluate()
+		 * @return descriptions of the rules that failed, in rule order
+		 */
+		public List<String> failures(long _bitmap) {
+			List<String> failed = new ArrayList<String>();
+			for( int i=0; i<checks.length; i++ ) {
+				if( (_bitmap & (1L << i)) == 0 ) {
+					failed.add(descriptions[i]);
+				}
+			}
+			return failed;
+		}
+		
+		/**
+		 * @param _i rule index
+		 * @return the rule in the form routine(fields; params)
+		 */
+		public String describe(int _i) {
+			return descriptions[_i];
+		}
+	}
+	
+	/**
+	 * One compiled routine invocation, shared by all rules with the same 
+	 * routine and parameters
+	 */
+	static abstract class Check {
+		
+		abstract boolean test(Object[] _row, int[] _fields);
+		
+		boolean multiField() {
+			return false;
+		}
+		
+		static String str(Object _obj) {
+			if( _obj == null || _obj instanceof String ) {
+				return (String)_obj;
+			}
+			return _obj.toString();
+		}
+
+		static Check create(String _routine, final String[] _params) {
+			
+			if( _routine.equals("isPhoneNum") ) {
+				expectParams(_routine, _params, 1, 2);
+				final String region = _params[0];
+				final boolean loose = (_params.length > 1) && Boolean.parseBoolean(_params[1]);
+				final PhoneNumberUtil phoneUtil = PhoneNumberUtil.getInstance();
+				return new Check() {
+					boolean test(Object[] _row, int[] _fields) {
+						String s = str(_row[_fields[0]]);
+						try {
+							PhoneNumber pn = phoneUtil.parse(s, region);
+							return loose ? phoneUtil.isPossibleNumber(pn) : phoneUtil.isValidNumber(pn);
+						}
+						catch(NumberParseException ignore) {
+							return false;
+						}
+					}
+				};
+			}
+			if( _routine.equals("isEmail") ) {
+				expectParams(_routine, _params, 0, 1);
+				final boolean loose = (_params.length > 0) && Boolean.parseBoolean(_params[0]);
+				return new Check() {
+					boolean test(Object[] _row, int[] _fields) {
+						return emailAddress(str(_row[_fields[0]]), loose);
+					}
+				};
+			}
+			if( _routine.equals("isPostalCode") ) {
+				expectParams(_routine, _params, 1, 1);
+				final String country = _params[0];
+				return new Check() {
+					boolean test(Object[] _row, int[] _fields) {
+						return isPostalCode(country, str(_row[_fields[0]]));
+					}
+				};
+			}
+			if( _routine.equals("isIBAN") ) {
+				expectParams(_routine, _params, 0, 0);
+				return new Check() {
+					boolean test(Object[] _row, int[] _fields) {
+						return isIBAN(str(_row[_fields[0]]));
+					}
+				};
+			}
+			if( _routine.equals("isCreditCard") ) {
+				expectParams(_routine, _params, 0, 0);
+				return new Check() {
+					boolean test(Object[] _row, int[] _fields) {
+						return isCreditCard(str(_row[_fields[0]]));
+					}
+				};
+			}
+			if( _routine.equals("isSSN") ) {
+				expectParams(_routine, _params, 0, 0);
+				return new Check() {
+					boolean test(Object[] _row, int[] _fields) {
+						return isSSN(str(_row[_fields[0]]));
+					}
+				};
+			}
+			if( _routine.equals("inList") ) {
+				expectParams(_routine, _params, 1, 1);
+				final String tableName = _params[0];
+				return new Check() {
+					boolean test(Object[] _row, int[] _fields) {
+						return inList(tableName, str(_row[_fields[0]]));
+					}
+				};
+			}
+			if( _routine.equals("matches") || _routine.equals("find") ) {
+				expectParams(_routine, _params, 1, 1);
+				final Pattern p = pattern(_params[0]);
+				final boolean entire = _routine.equals("matches");
+				return new Check() {
+					boolean test(Object[] _row, int[] _fields) {
+						String s = str(_row[_fields[0]]);
+						return s != null && match(p, s, entire);
+					}
+				};
+			}
+			if( _routine.equals("isBlank") || _routine.equals("notBlank") ) {
+				expectParams(_routine, _params, 0, 0);
+				final boolean blank = _routine.equals("isBlank");
+				return new Check() {
+					boolean test(Object[] _row, int[] _fields) {
+						return isBlank(str(_row[_fields[0]])) == blank;
+					}
+				};
+			}
+			if( _routine.equals("okChars") ) {
+				expectParams(_routine, _params, 1, 1);
+				final Charset cs = charset(_params[0]);
+				final ThreadLocal<CharsetEncoder> encoder = new ThreadLocal<CharsetEncoder>() {
+					protected CharsetEncoder initialValue() {
+						return cs.newEncoder();
+					}
+				};
+				return new Check() {
+					boolean test(Object[] _row, int[] _fields) {
+						String s = str(_row[_fields[0]]);
+						if( StringUtils.isEmpty(s) ) return true;
+						CharsetEncoder enc = encoder.get();
+						enc.reset();
+						return enc.canEncode(s);
+					}
+				};
+			}
+			if( _routine.equals("isXML") ) {
+				expectParams(_routine, _params, 0, 1);
+				final String cs = (_params.length > 0) ? charset(_params[0]).name() : UTF8_CHARSET;
+				final SAXParserFactory factory = SAXParserFactory.newInstance();
+				factory.setValidating(true);
+				final ThreadLocal<SAXParser> parser = new ThreadLocal<SAXParser>() {
+					protected SAXParser initialValue() {
+						try {
+							return factory.newSAXParser();
+						}
+						catch(Exception exc) {
+							throw new IllegalStateException(exc);
+						}
+					}
+				};
+				return new Check() {
+					boolean test(Object[] _row, int[] _fields) {
+						try {
+							return isXML(str(_row[_fields[0]]), cs, parser.get());
+						}
+						catch(Exception exc) {
+							return false;
+						}
+					}
+				};
+			}
+			if( _routine.equals("isJSON") ) {
+				expectParams(_routine, _params, 0, 0);
+				return new Check() {
+					boolean test(Object[] _row, int[] _fields) {
+						return isJSON(str(_row[_fields[0]]));
+					}
+				};
+			}
+			if( _routine.equals("hasJSONPath") ) {
+				expectParams(_routine, _params, 1, 1);
+				final String path = _params[0];
+				return new Check() {
+					boolean test(Object[] _row, int[] _fields) {
+						try {
+							return hasJSONPath(str(_row[_fields[0]]), path);
+						}
+						catch(Exception exc) {
+							return false;
+						}
+					}
+				};
+			}
+			if( _routine.equals("all") || _routine.equals("xor") || _routine.equals("none") ) {
+				expectParams(_routine, _params, 0, 0);
+				return countCheck(_routine.equals("all") ? -1 : (_routine.equals("xor") ? 1 : 0), true);
+			}
+			if( _routine.equals("atLeast") || _routine.equals("exactly") ) {
+				expectParams(_routine, _params, 1, 1);
+				int n;
+				try {
+					n = Integer.parseInt(_params[0].trim());
+				}
+				catch(NumberFormatException exc) {
+					throw new IllegalArgumentException(_routine + " requires a numeric count");
+				}
+				return countCheck(n, _routine.equals("exactly"));
+			}
+			
+			throw new IllegalArgumentException("unsupported routine '" + _routine + "'");
+		}
+		
+		/**
+		 * @param _n required count of set fields; -1 for every field
+		 * @param _exact true to require exactly _n, false for at least _n
+		 */
+		private static Check countCheck(final int _n, final boolean _exact) {
+			return new Check() {
+				boolean test(Object[] _row, int[] _fields) {
+					int n = (_n < 0) ? _fields.length : _n;
+					int count = 0;
+					for( int i=0; i<_fields.length; i++ ) {
+						if( isSet(_row[_fields[i]]) && ++count > n && _exact ) {
+							return false;
+						}
+						if( !_exact && count >= n ) {
+							return true;
+						}
+						if( count + (_fields.length - i - 1) < n ) {
+							return false;
+						}
+					}
+					return _exact ? count == n : count >= n;
+				}
+				boolean multiField() {
+					return true;
+				}
+			};
+		}
+		
+		private static void expectParams(String _routine, String[] _params, int _min, int _max) {
+			if( _params.length < _min || _params.length > _max ) {
+				throw new IllegalArgumentException("wrong number of parameters for " + _routine);
+			}
+		}
+		
+		private static Charset charset(String _charset) {
+			try {
+				return Charset.forName(_charset);
+			}
+			catch(Exception exc) {
+				throw new IllegalArgumentException("unsupported charset '" + _charset + "'");
+			}
+		}
+	}
+
+	/**
+	 * Loads and compiles a rule set definition from a properties file
+	 * 
+	 * The file lists the row fields and one rule per numbered key; rules are
+	 * compiled in key order so bit positions follow the numbering
+	 * 
+	 * <pre>
+	 * fields=phone,name,fax
+	 * rule.1=isPhoneNum phone US
+	 * rule.2=okChars name Cp1252
+	 * rule.3=xor phone,fax
+	 * </pre>
+	 * 
+	 * Each rule value is the routine, the field(s), then any parameters, 
+	 * separated by whitespace
+	 * 
+	 * @param _path path of the properties file
+	 * @return the compiled rule set
+	 * @throws IOException if the file cannot be read
+	 * @since 1.6.0
+	 */
+	public static CompiledRuleSet loadRuleSet(String _path) throws IOException {
+		return parseRuleSet(readProperties(new File(_path))).compile();
+	}
+	
+	/**
+	 * Loads a rule set from a properties file and reloads it in the 
+	 * background whenever the file changes
+	 * 
+	 * The initial load happens on the calling thread; reloads compile on a 
+	 * daemon thread and swap the new rule set in atomically.  If a reload 
+	 * fails, the previous rule set stays in use.
+	 * 
+	 * @param _path path of the properties file; see loadRuleSet() for format
+	 * @param _pollMillis how often to check the file for changes
+	 * @return a handle to the current rule set; close() stops watching
+	 * @throws IOException if the initial load fails
+	 * @since 1.6.0
+	 */
+	public static RuleSetFile watchRuleSet(String _path, long _pollMillis) throws IOException {
+		if( _pollMillis <= 0 ) throw new IllegalArgumentException("pollMillis must be > 0");
+		RuleSetFile rsf = new RuleSetFile(new File(_path));
+		rsf.start(_pollMillis);
+		return rsf;
+	}
+	
+	/**
+	 * For internal use only
+	 * 
+	 * @param _props fields and rule.N entries
+	 * @return the uncompiled definition
+	 */
+	static RuleSet parseRuleSet(Properties _props) {
+		
+		String fields = _props.getProperty(RULESET_FIELDS_KEY);
+		if( StringUtils.isBlank(fields) ) {
+			throw new IllegalArgumentException(ERROR_MESSAGE_RULESET_FIELDS);
+		}
+		
+		String[] fieldNames = StringUtils.split(fields, ',');
+		for( int i=0; i<fieldNames.length; i++ ) {
+			fieldNames[i] = fieldNames[i].trim();
+		}
+		RuleSet rs = new RuleSet(fieldNames);
+		
+		SortedMap<Integer, String> rules = new TreeMap<Integer, String>();
+		for( String key : _props.stringPropertyNames() ) {
+			if( key.startsWith(RULESET_RULE_PREFIX) ) {
+				try {
+					rules.put(Integer.valueOf(key.substring(RULESET_RULE_PREFIX.length())), _props.getProperty(key));
+				}
+				catch(NumberFormatException exc) {
+					throw new IllegalArgumentException("rule keys must be numbered, found '" + key + "'");
+				}
+			}
+		}
+		
+		for( String rule : rules.values() ) {
+			String[] tokens = StringUtils.split(rule);
+			if( tokens.length < 2 ) {
+				throw new IllegalArgumentException(ERROR_MESSAGE_RULESET_RULE);
+			}
+			rs.rule(tokens[0], tokens[1], Arrays.copyOfRange(tokens, 2, tokens.length));
+		}
+		
+		return rs;
+	}
+	
+	private static Properties readProperties(File _file) throws IOException {
+		Properties props = new Properties();
+		Reader reader = new InputStreamReader(new FileInputStream(_file), UTF8_CHARSET);
+		try {
+			props.load(reader);
+		}
+		finally {
+			reader.close();
+		}
+		return props;
+	}
+	
+	/**
+	 * A compiled rule set backed by a properties file that is reloaded when 
+	 * the file changes
+	 * 
+	 * Callers should take one snapshot with get() per row (or batch) so that 
+	 * in-flight rows finish with the rule set they started with
+	 * 
+	 * @since 1.6.0
+	 */
+	public static class RuleSetFile implements Closeable {
+		
+		private final File file;
+		private final AtomicReference<CompiledRuleSet> current = new AtomicReference<CompiledRuleSet>();
+		private volatile Exception lastError;
+		private long lastModified;
+		private long lastLength;
+		private ScheduledExecutorService watcher;
+
+		RuleSetFile(File _file) throws IOException {
+			this.file = _file;
+			lastModified = file.lastModified();
+			lastLength = file.length();
+			current.set( parseRuleSet(readProperties(file)).compile() );
+		}
+		
+		synchronized void start(long _pollMillis) {
+			watcher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "brules-ruleset-watcher");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+			watcher.scheduleWithFixedDelay(new Runnable() {
+				public void run() {
+					reloadIfChanged();
+				}
+			}, _pollMillis, _pollMillis, TimeUnit.MILLISECONDS);
+		}
+		
+		/**
+		 * @return the current compiled rule set; never null
+		 */
+		public CompiledRuleSet get() {
+			return current.get();
+		}
+		
+		/**
+		 * Evaluates the row against the current snapshot
+		 * 
+		 * @param _row field values in the order of the file's fields entry
+		 * @return pass/fail bitmap; see CompiledRuleSet.evaluate()
+		 */
+		public long evaluate(Object..._row) {
+			return current.get().evaluate(_row);
+		}
+		
+		/**
+		 * Reloads the file now regardless of whether it has changed
+		 * 
+		 * @return true if the new rule set was swapped in
+		 */
+		public synchronized boolean reload() {
+			lastModified = file.lastModified();
+			lastLength = file.length();
+			try {
+				current.set( parseRuleSet(readProperties(file)).compile() );
+				lastError = null;
+				return true;
+			}
+			catch(Exception exc) {
+				lastError = exc;
+				return false;
+			}
+		}
+		
+		synchronized boolean reloadIfChanged() {
+			if( file.lastModified() == lastModified && file.length() == lastLength ) {
+				return false;
+			}
+			return reload();
+		}
+		
+		/**
+		 * @return the error from the most recent failed reload, or null if 
+		 * the last reload succeeded
+		 */
+		public Exception getLastError() {
+			return lastError;
+		}
+		
+		/**
+		 * Stops watching the file; the last loaded rule set remains usable
+		 */
+		public synchronized void close() {
+			if( watcher != null ) {
+				watcher.shutdownNow();
+				watcher = null;
+			}
+		}
+	}
+
+	/**
+	 * Opt-in invocation metrics for the validation and conversion routines
+	 * 
+	 * Disabled by default; enable with -Dbrules.metrics=true or 
+	 * Metrics.setEnabled(true).  While disabled, each instrumented routine 
+	 * pays a single volatile read.  Counters are striped by thread so that
+	 * concurrent job threads do not contend on the same cache line.
+	 * 
+	 * Enabling registers a MetricsMXBean under org.bekwam.brules:type=Metrics.
+	 * 
+	 * @since 1.6.0
+	 */
+	public static class Metrics {
+		
+		/**
+		 * The instrumented routines
+		 */
+		public enum Routine {
+			IS_PHONE_NUM("isPhoneNum"),
+			IS_EMAIL("isEmail"),
+			IS_XML("isXML"),
+			OK_CHARS("okChars"),
+			TO_CHARSET("toCharset"),
+			IS_JSON("isJSON"),
+			HAS_JSON_PATH("hasJSONPath");
+			
+			private final String routineName;
+			
+			private Routine(String _routineName) {
+				this.routineName = _routineName;
+			}
+			
+			public String getRoutineName() {
+				return routineName;
+			}
+		}
+		
+		public final static String OBJECT_NAME = "org.bekwam.brules:type=Metrics";
+		
+		/** latency histogram buckets; bucket i counts calls taking [2^i, 2^(i+1)) ns */
+		public final static int NUM_BUCKETS = 40;
+		
+		private final static int SLOT_TRUE = 0;
+		private final static int SLOT_FALSE = 1;
+		private final static int SLOT_ERROR = 2;
+		private final static int SLOT_NANOS = 3;
+		private final static int SLOT_BUCKETS = 4;
+		private final static int STRIDE = 48; // 4 + NUM_BUCKETS, padded to a multiple of 8 longs
+		private final static int STRIPES = stripes();
+		
+		private final static long DISABLED = Long.MIN_VALUE;
+		
+		private static volatile boolean enabled = false;
+		
+		private final static AtomicLongArray[] cells = new AtomicLongArray[Routine.values().length];
+		
+		static {
+			for( int i=0; i<cells.length; i++ ) {
+				cells[i] = new AtomicLongArray(STRIPES * STRIDE);
+			}
+			if( Boolean.getBoolean("brules.metrics") ) {
+				setEnabled(true);
+			}
+		}
+		
+		private static int stripes() {
+			int n = 1;
+			while( n < Runtime.getRuntime().availableProcessors() * 2 && n < 64 ) {
+				n <<= 1;
+			}
+			return n;
+		}
+		
+		public static boolean isEnabled() {
+			return enabled;
+		}
+		
+		/**
+		 * Turns recording on or off; turning it on registers the MXBean
+		 * 
+		 * If registration fails, for example under a security manager, 
+		 * recording still works and the counters stay available through 
+		 * snapshot(); isRegistered() reports false.
+		 * 
+		 * @param _enabled true to record
+		 */
+		public static synchronized void setEnabled(boolean _enabled) {
+			if( _enabled ) {
+				register();
+			}
+			enabled = _enabled;
+		}
+		
+		/**
+		 * Clears all recorded values
+		 */
+		public static void reset() {
+			for( AtomicLongArray a : cells ) {
+				for( int i=0; i<a.length(); i++ ) {
+					a.set(i, 0L);
+				}
+			}
+		}
+		
+		/**
+		 * @return a point-in-time copy of the counters for every routine, in
+		 * Routine order; values recorded concurrently may be partially 
+		 * included
+		 */
+		public static List<RoutineStats> snapshot() {
+			List<RoutineStats> stats = new ArrayList<RoutineStats>();
+			for( Routine r : Routine.values() ) {
+				stats.add(snapshot(r));
+			}
+			return stats;
+		}
+		
+		public static RoutineStats snapshot(Routine _routine) {
+			AtomicLongArray a = cells[_routine.ordinal()];
+			long[] totals = new long[SLOT_BUCKETS + NUM_BUCKETS];
+			for( int s=0; s<STRIPES; s++ ) {
+				for( int i=0; i<totals.length; i++ ) {
+					totals[i] += a.get(s * STRIDE + i);
+				}
+			}
+			return new RoutineStats(_routine.getRoutineName(), totals[SLOT_TRUE], totals[SLOT_FALSE], 
+					totals[SLOT_ERROR], totals[SLOT_NANOS], Arrays.copyOfRange(totals, SLOT_BUCKETS, totals.length));
+		}
+		
+		/**
+		 * @return a start time to pass to end(), or DISABLED when disabled;
+		 * nanoTime() may be negative, so -1 can't serve as the sentinel
+		 */
+		static long start() {
+			return enabled ? System.nanoTime() : DISABLED;
+		}
+		
+		static boolean end(Routine _routine, long _start, boolean _result) {
+			if( _start != DISABLED ) {
+				record(_routine, _start, _result ? SLOT_TRUE : SLOT_FALSE);
+			}
+			return _result;
+		}
+		
+		/**
+		 * Records a routine that does not return a boolean; counted as true
+		 * 
+		 * Named apart from end() so that a boxed Boolean can't select it
+		 */
+		static <T> T endValue(Routine _routine, long _start, T _result) {
+			if( _start != DISABLED ) {
+				record(_routine, _start, SLOT_TRUE);
+			}
+			return _result;
+		}
+		
+		static void error(Routine _routine, long _start) {
+			if( _start != DISABLED ) {
+				record(_routine, _start, SLOT_ERROR);
+			}
+		}
+		
+		private static void record(Routine _routine, long _start, int _slot) {
+			long nanos = System.nanoTime() - _start;
+			if( nanos < 0 ) nanos = 0;
+			int bucket = Math.min(NUM_BUCKETS - 1, 63 - Long.numberOfLeadingZeros(nanos | 1L));
+			int base = ((int)Thread.currentThread().getId() & (STRIPES - 1)) * STRIDE;
+			AtomicLongArray a = cells[_routine.ordinal()];
+			a.incrementAndGet(base + _slot);
+			a.addAndGet(base + SLOT_NANOS, nanos);
+			a.incrementAndGet(base + SLOT_BUCKETS + bucket);
+		}
+		
+		private static volatile boolean registered = false;
+		
+		/**
+		 * @return true if the MXBean is registered with the platform MBean 
+		 * server
+		 */
+		public static boolean isRegistered() {
+			return registered;
+		}
+		
+		private static void register() {
+			if( registered ) return;
+			try {
+				MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+				ObjectName name = new ObjectName(OBJECT_NAME);
+				if( !server.isRegistered(name) ) {
+					server.registerMBean(new MetricsMXBeanImpl(), name);
+				}
+				registered = true;
+			}
+			catch(Exception ignore) {
+				// JMX is optional; snapshot() still works
+			}
+		}
+	}
+	
+	/**
+	 * Counters for one routine, taken by Metrics.snapshot()
+	 * 
+	 * @since 1.6.0
+	 */
+	public static class RoutineStats {
+		
+		private final String routineName;
+		private final long trueCount;
+		private final long falseCount;
+		private final long errorCount;
+		private final long totalNanos;
+		private final long[] histogram;
+		
+		RoutineStats(String _routineName, long _trueCount, long _falseCount, long _errorCount, long _totalNanos, long[] _histogram) {
+			this.routineName = _routineName;
+			this.trueCount = _trueCount;
+			this.falseCount = _falseCount;
+			this.errorCount = _errorCount;
+			this.totalNanos = _totalNanos;
+			this.histogram = _histogram;
+		}
+		
+		public String getRoutineName() {
+			return routineName;
+		}
+		
+		public long getCalls() {
+			return trueCount + falseCount + errorCount;
+		}
+		
+		/**
+		 * @return calls returning true; for non-boolean routines, calls 
+		 * returning normally
+		 */
+		public long getTrueCount() {
+			return trueCount;
+		}
+		
+		public long getFalseCount() {
+			return falseCount;
+		}
+		
+		/**
+		 * @return calls that threw an exception
+		 */
+		public long getErrorCount() {
+			return errorCount;
+		}
+		
+		/**
+		 * @return fraction of calls that returned false or threw
+		 */
+		public double getFailureRate() {
+			long calls = getCalls();
+			return (calls == 0) ? 0.0 : (double)(falseCount + errorCount) / calls;
+		}
+		
+		public long getTotalNanos() {
+			return totalNanos;
+		}
+		
+		public long getMeanNanos() {
+			long calls = getCalls();
+			return (calls == 0) ? 0L : totalNanos / calls;
+		}
+		
+		/**
+		 * @return call counts by latency; bucket i covers [2^i, 2^(i+1)) ns
+		 */
+		public long[] getHistogram() {
+			return histogram.clone();
+		}
+		
+		/**
+		 * @param _p percentile, 0 to 100
+		 * @return upper bound in nanoseconds of the histogram bucket holding
+		 * the percentile, or 0 if no calls were recorded
+		 */
+		public long percentileNanos(double _p) {
+			long calls = getCalls();
+			if( calls == 0 ) return 0L;
+			long target = (long)Math.ceil(calls * Math.max(0.0, Math.min(100.0, _p)) / 100.0);
+			long seen = 0;
+			for( int i=0; i<histogram.length; i++ ) {
+				seen += histogram[i];
+				if( seen >= target && seen > 0 ) {
+					return (1L << (i + 1)) - 1;
+				}
+			}
+			return Long.MAX_VALUE;
+		}
+		
+		public long getP50Nanos() {
+			return percentileNanos(50.0);
+		}
+		
+		public long getP99Nanos() {
+			return percentileNanos(99.0);
+		}
+	}
+	
+	/**
+	 * JMX view of Metrics
+	 * 
+	 * @since 1.6.0
+	 */
+	public interface MetricsMXBean {
+		
+		boolean isEnabled();
+		
+		void setEnabled(boolean _enabled);
+		
+		List<RoutineStats> getRoutineStats();
+		
+		void reset();
+	}
+	
+	static class MetricsMXBeanImpl implements MetricsMXBean {
+		
+		public boolean isEnabled() {
+			return Metrics.isEnabled();
+		}
+		
+		public void setEnabled(boolean _enabled) {
+			Metrics.setEnabled(_enabled);
+		}
+		
+		public List<RoutineStats> getRoutineStats() {
+			return Metrics.snapshot();
+		}
+		
+		public void reset() {
+			Metrics.reset();
+		}
+	}
+
+	/**
+	 * Creates an empty fixed-width record layout
+	 * 
+	 * {example} recordLayout().field("id", 8, BRules.Align.RIGHT, '0').field("name", 20).format(42, "Carl")
+	 * 
+	 * @return a layout with no fields
+	 * @since 1.6.0
+	 */
+	public static RecordLayout recordLayout() {
+		return new RecordLayout();
+	}
+	
+	/**
+	 * Field alignment within a fixed-width record; LEFT pads on the right 
+	 * like padRight(), RIGHT pads on the left like pad()
+	 * 
+	 * @since 1.6.0
+	 */
+	public enum Align { LEFT, RIGHT }
+	
+	/**
+	 * A fixed-width record layout: field widths, alignment, and pad 
+	 * characters defined once, then used to format rows into one reused 
+	 * buffer and to parse lines back into fields by offset
+	 * 
+	 * Define all fields before sharing a layout between threads; format()
+	 * and parse() are then thread-safe.
+	 * 
+	 * @since 1.6.0
+	 */
+	public static class RecordLayout {
+		
+		private final List<String> names = new ArrayList<String>();
+		private int[] offsets = new int[0];
+		private int[] widths = new int[0];
+		private Align[] aligns = new Align[0];
+		private char[] padChars = new char[0];
+		private int length = 0;
+		private boolean truncate = false;
+		
+		private final ThreadLocal<char[]> buffer = new ThreadLocal<char[]>();
+		
+		RecordLayout() {}
+		
+		/**
+		 * Adds a left-aligned, space-padded field
+		 * 
+		 * @param _name field name
+		 * @param _width field width in chars
+		 * @return this
+		 */
+		public RecordLayout field(String _name, int _width) {
+			return field(_name, _width, Align.LEFT, ' ');
+		}
+		
+		/**
+		 * Adds a field
+		 * 
+		 * @param _name field name
+		 * @param _width field width in chars
+		 * @param _align alignment of the value within the field
+		 * @param _padChar character filling the rest of the field
+		 * @return this
+		 */
+		public RecordLayout field(String _name, int _width, Align _align, char _padChar) {
+			if( _width <= 0 ) throw new IllegalArgumentException("width must be > 0");
+			if( _align == null ) throw new IllegalArgumentException("align is required");
+			int n = names.size();
+			names.add(_name);
+			offsets = Arrays.copyOf(offsets, n + 1);
+			widths = Arrays.copyOf(widths, n + 1);
+			aligns = Arrays.copyOf(aligns, n + 1);
+			padChars = Arrays.copyOf(padChars, n + 1);
+			offsets[n] = length;
+			widths[n] = _width;
+			aligns[n] = _align;
+			padChars[n] = _padChar;
+			length += _width;
+			return this;
+		}
+		
+		/**
+		 * Sets what format() does with a value wider than its field: cut it
+		 * to the field width (keeping the leftmost chars for LEFT fields and 
+		 * the rightmost for RIGHT fields) or throw IllegalArgumentException,
+		 * the default
+		 * 
+		 * @param _truncate true to cut overlong values
+		 * @return this
+		 */
+		public RecordLayout truncate(boolean _truncate) {
+			this.truncate = _truncate;
+			return this;
+		}
+		
+		public int size() {
+			return names.size();
+		}
+		
+		/**
+		 * @return total record width in chars
+		 */
+		public int getLength() {
+			return length;
+		}
+		
+		public String getName(int _i) {
+			return names.get(_i);
+		}
+		
+		public int getOffset(int _i) {
+			return offsets[_i];
+		}
+		
+		public int getWidth(int _i) {
+			return widths[_i];
+		}
+		
+		/**
+		 * Formats one row
+		 * 
+		 * Nulls are written as all pad chars; Integer and Long values are 
+		 * written without calling toString().  A negative number in a 
+		 * zero-padded RIGHT field is padded after its sign, as in -0000042.
+		 * 
+		 * @param _values one value per field, in field order
+		 * @return the record
+		 */
+		public String format(Object..._values) {
+			char[] buf = fill(_values);
+			return new String(buf, 0, length);
+		}
+		
+		/**
+		 * Formats one row to the output
+		 * 
+		 * @param _out destination, for example a Writer
+		 * @param _values one value per field, in field order
+		 * @return _out
+		 * @throws IOException if _out throws
+		 */
+		public <A extends Appendable> A format(A _out, Object..._values) throws IOException {
+			char[] buf = fill(_values);
+			if( _out instanceof Writer ) {
+				((Writer)_out).write(buf, 0, length);
+			}
+			else {
+				_out.append(CharBuffer.wrap(buf, 0, length));
+			}
+			return _out;
+		}
+		
+		private char[] fill(Object[] _values) {
+			if( _values == null || _values.length != names.size() ) {
+				throw new IllegalArgumentException("expected " + names.size() + " values");
+			}
+			char[] buf = buffer.get();
+			if( buf == null || buf.length < length ) {
+				buf = new char[length];
+				buffer.set(buf);
+			}
+			for( int i=0; i<_values.length; i++ ) {
+				fillField(buf, i, _values[i]);
+			}
+			return buf;
+		}
+		
+		private void fillField(char[] _buf, int _i, Object _value) {
+			int start = offsets[_i];
+			int end = start + widths[_i];
+			char padChar = padChars[_i];
+			
+			if( _value instanceof Integer || _value instanceof Long ) {
+				long v = ((Number)_value).longValue();
+				int n = numChars(v);
+				if( n <= widths[_i] ) {
+					int from = (aligns[_i] == Align.RIGHT) ? end - n : start;
+					Arrays.fill(_buf, start, end, padChar);
+					getChars(v, from + n, _buf);
+					moveSign(_buf, start, from, padChar);
+					return;
+				}
+			}
+			
+			String s = (_value == null) ? "" : _value.toString();
+			int n = s.length();
+			int srcBegin = 0;
+			if( n > widths[_i] ) {
+				if( !truncate ) {
+					throw new IllegalArgumentException("value for field '" + names.get(_i) + "' exceeds " + widths[_i] + " chars");
+				}
+				if( aligns[_i] == Align.RIGHT ) {
+					srcBegin = n - widths[_i];
+				}
+				n = widths[_i];
+			}
+			int from = (aligns[_i] == Align.RIGHT) ? end - n : start;
+			Arrays.fill(_buf, start, from, padChar);
+			s.getChars(srcBegin, srcBegin + n, _buf, from);
+			Arrays.fill(_buf, from + n, end, padChar);
+			if( _value instanceof Number ) {
+				moveSign(_buf, start, from, padChar);
+			}
+		}
+		
+		/**
+		 * Moves a minus sign ahead of the zero padding so that the field 
+		 * reads as a number
+		 */
+		private static void moveSign(char[] _buf, int _start, int _from, char _padChar) {
+			if( _padChar == '0' && _from > _start && _buf[_from] == '-' ) {
+				_buf[_from] = '0';
+				_buf[_start] = '-';
+			}
+		}
+		
+		/**
+		 * Splits a record into fields, removing each field's padding
+		 * 
+		 * Fields past the end of a short line are returned as "".  A RIGHT
+		 * field that is all padding keeps one pad char unless the pad is a
+		 * space, so a zero-padded 0 parses as "0" and 0.5 as "0.5"; zeros 
+		 * after a leading minus sign are removed, so -0000042 parses as "-42".
+		 * 
+		 * @param _line the record
+		 * @return one value per field
+		 */
+		public String[] parse(String _line) {
+			return parse(_line, new String[names.size()]);
+		}
+		
+		/**
+		 * Splits a record into a caller-supplied array
+		 * 
+		 * @param _line the record
+		 * @param _dest array of at least size() elements
+		 * @return _dest
+		 */
+		public String[] parse(String _line, String[] _dest) {
+			if( _line == null ) throw new IllegalArgumentException("line is required");
+			for( int i=0; i<names.size(); i++ ) {
+				_dest[i] = parseField(_line, i);
+			}
+			return _dest;
+		}
+		
+		/**
+		 * Extracts one field from a record, removing its padding
+		 * 
+		 * @param _line the record
+		 * @param _i field index
+		 * @return the field value
+		 */
+		public String parseField(String _line, int _i) {
+			int start = Math.min(offsets[_i], _line.length());
+			int end = Math.min(offsets[_i] + widths[_i], _line.length());
+			char padChar = padChars[_i];
+			if( aligns[_i] == Align.RIGHT ) {
+				if( padChar == ' ' ) {
+					while( start < end && _line.charAt(start) == padChar ) start++;
+				}
+				else if( padChar == '0' && start < end && _line.charAt(start) == '-' ) {
+					return "-" + _line.substring(skipPad(_line, start + 1, end, padChar), end);
+				}
+				else {
+					start = skipPad(_line, start, end, padChar);
+				}
+			}
+			else {
+				while( end > start && _line.charAt(end - 1) == padChar ) end--;
+			}
+			return _line.substring(start, end);
+		}
+		
+		/**
+		 * @return the index of the first char after the leading pad chars,
+		 * stopping at the last char of the field and at a zero ahead of a 
+		 * decimal point
+		 */
+		private static int skipPad(String _line, int _start, int _end, char _padChar) {
+			while( _start < _end - 1 && _line.charAt(_start) == _padChar && 
+					!(_padChar == '0' && _line.charAt(_start + 1) == '.') ) {
+				_start++;
+			}
+			return _start;
+		}
+	}
+
+	/**
+	 * fingerprint: a 64-bit hash of the field values for detecting changed
+	 * rows, computed without joining the fields into a String
+	 * 
+	 * Each field is hashed with its type and length, so a null field and an
+	 * empty string differ, as do ("ab", "c") and ("a", "bc").  Integral 
+	 * numbers of any type with the same value hash the same, including 
+	 * BigInteger and integral BigDecimal; other BigDecimals hash by numeric
+	 * value, so 1.50 and 1.5 agree.  Arrays hash element by element.  Other
+	 * objects hash by toString(), which must not be the identity default 
+	 * for values to be stable across runs and JVMs.
+	 * 
+	 * {talendTypes} long
+	 * 
+	 * {Category} BRules
+	 * 
+	 * {param} object() input: the row's field values
+	 * 
+	 * {example} fingerprint(42, "Carl") # 2288750952994383438
+	 * 
+	 * @since 1.6.0
+	 */
+	public static long fingerprint(Object..._fields) {
+		KeyHash h = KEY_HASH.get();
+		h.reset(0L);
+		h.fields(_fields);
+		h.finish();
+		return h.h1;
+	}
+
+	/**
+	 * fingerprint128: the 128-bit form of fingerprint() as 32 hex digits; 
+	 * the first 16 are fingerprint() itself
+	 * 
+	 * {talendTypes} String
+	 * 
+	 * {Category} BRules
+	 * 
+	 * {param} object() input: the row's field values
+	 * 
+	 * {example} fingerprint128(42, "Carl") # "1fc346dd8c91264e15c8bce0468c7a4f"
+	 * 
+	 * @since 1.6.0
+	 */
+	public static String fingerprint128(Object..._fields) {
+		KeyHash h = KEY_HASH.get();
+		h.reset(0L);
+		h.fields(_fields);
+		h.finish();
+		char[] hex = PAD_BUFFER.get();
+		hex(h.h1, hex, 0);
+		hex(h.h2, hex, 16);
+		return new String(hex, 0, 32);
+	}
+
+	/**
+	 * fingerprintSHA256: a SHA-256 digest of the field values as 64 hex 
+	 * digits, for audit trails that need a cryptographic hash
+	 * 
+	 * The digest is taken over the same type- and length-prefixed encoding 
+	 * as fingerprint(), so it has the same null and field boundary handling
+	 * 
+	 * {talendTypes} String
+	 * 
+	 * {Category} BRules
+	 * 
+	 * {param} object() input: the row's field values
+	 * 
+	 * {example} fingerprintSHA256(42, "Carl") # "c4ed296e...362ba1ca"
+	 * 
+	 * @since 1.6.0
+	 */
+	public static String fingerprintSHA256(Object..._fields) {
+		DigestKey h = DIGEST_KEY.get();
+		h.reset(0L);
+		h.fields(_fields);
+		byte[] digest = h.digest();
+		char[] hex = PAD_BUFFER.get();
+		for( int i=0; i<digest.length; i++ ) {
+			hex[i * 2] = HEX_DIGITS[(digest[i] >> 4) & 0xF];
+			hex[i * 2 + 1] = HEX_DIGITS[digest[i] & 0xF];
+		}
+		return new String(hex, 0, digest.length * 2);
+	}
+
+	private static void hex(long _v, char[] _dest, int _offset) {
+		for( int i=15; i>=0; i-- ) {
+			_dest[_offset + i] = HEX_DIGITS[(int)(_v & 0xF)];
+			_v >>>= 4;
+		}
+	}
+
+	/**
+	 * Creates a duplicate filter backed by a Bloom filter sized for the 
+	 * expected number of distinct keys
+	 * 
+	 * A new key is reported as a duplicate with at most the given 
+	 * probability while no more than the expected keys have been added; a 
+	 * repeated key is always reported.  Memory is fixed at about 
+	 * 1.44 * log2(1 / rate) bits per expected key; 1.2 MB for a million 
+	 * keys at 1%.
+	 * 
+	 * {example} dedup(1000000, 0.01).isDuplicate(row.firstName, row.lastName, row.zip)
+	 * 
+	 * @param _expectedRows expected number of distinct keys
+	 * @param _falsePositiveRate acceptable rate of new keys reported as duplicates
+	 * @return an empty duplicate filter
+	 * @since 1.6.0
+	 */
+	public static Dedup dedup(long _expectedRows, double _falsePositiveRate) {
+		if( _expectedRows <= 0 ) {
+			throw new IllegalArgumentException(ERROR_MESSAGE_DEDUP_ROWS);
+		}
+		if( !(_falsePositiveRate > 0.0 && _falsePositiveRate < 1.0) ) {
+			throw new IllegalArgumentException(ERROR_MESSAGE_DEDUP_RATE);
+		}
+		return new BloomDedup(_expectedRows, _falsePositiveRate);
+	}
+
+	/**
+	 * Creates a duplicate filter that records a 128-bit hash of each key in
+	 * an open-addressing table held outside the Java heap
+	 * 
+	 * Keys are never reported as duplicates by accident short of a 128-bit
+	 * hash collision, about one chance in 10^20 for a billion keys.  The 
+	 * table takes 16 bytes per slot at up to 75% load and is presized so 
+	 * that _expectedRows keys fit without growing: between 21 and 43 
+	 * bytes per expected key.
+	 * 
+	 * Going past _expectedRows doubles the table.  The old buffers are 
+	 * only released by a later garbage collection, so off-heap use peaks 
+	 * at three times the table's size before the resize, and repeated 
+	 * growth can fail with "OutOfMemoryError: Direct buffer memory" while 
+	 * the heap is idle.  Pass a generous estimate, and set 
+	 * -XX:MaxDirectMemorySize to at least three times the table size 
+	 * for the expected key count, or more if that estimate may be exceeded.
+	 * 
+	 * {example} dedupExact(1000000).isDuplicate(row.firstName, row.lastName, row.zip)
+	 * 
+	 * @param _expectedRows expected number of distinct keys; a sizing hint
+	 * of at most 3 * 2^38, the capacity of the largest table
+	 * @return an empty duplicate filter
+	 * @since 1.6.0
+	 */
+	public static Dedup dedupExact(long _expectedRows) {
+		if( _expectedRows <= 0 ) {
+			throw new IllegalArgumentException(ERROR_MESSAGE_DEDUP_ROWS);
+		}
+		if( _expectedRows > ExactDedup.MAX_KEYS ) {
+			throw new IllegalArgumentException(ERROR_MESSAGE_DEDUP_EXACT_ROWS + ExactDedup.MAX_KEYS);
+		}
+		return new ExactDedup(_expectedRows);
+	}
+
+	/**
+	 * Remembers composite keys across rows and reports repeats
+	 * 
+	 * Keys are hashed straight from the field values, without joining them
+	 * into a String.  A null field and an empty string are different keys,
+	 * as are ("ab", "c") and ("a", "bc").  Integral numbers of any type 
+	 * with the same value are the same key.
+	 * 
+	 * Instances are thread-safe.
+	 * 
+	 * @since 1.6.0
+	 */
+	public static abstract class Dedup {
+		
+		private long count = 0;
+		
+		Dedup() {}
+		
+		/**
+		 * Records the key made of the fields
+		 * 
+		 * @param _fields the key's field values
+		 * @return true if the key was seen before
+		 */
+		public boolean isDuplicate(Object..._fields) {
+			KeyHash h = KEY_HASH.get();
+			h.reset(0L);
+			h.fields(_fields);
+			h.finish();
+			long h1 = h.h1, h2 = h.h2;
+			synchronized(this) {
+				if( add(h1, h2) ) {
+					count++;
+					return false;
+				}
+				return true;
+			}
+		}
+		
+		/**
+		 * @return the number of keys reported as new
+		 */
+		public synchronized long count() {
+			return count;
+		}
+		
+		/**
+		 * @return true if the hash was not already present
+		 */
+		abstract boolean add(long _h1, long _h2);
+	}
+	
+	private static class BloomDedup extends Dedup {
+		
+		private final static int MAX_HASHES = 30;
+		
+		private final long[] bits;
+		private final long numBits;
+		private final int numHashes;
+		
+		BloomDedup(long _expectedRows, double _falsePositiveRate) {
+			double ln2 = Math.log(2);
+			long m = (long)Math.ceil(-_expectedRows * Math.log(_falsePositiveRate) / (ln2 * ln2));
+			m = Math.max(64L, Math.min(m, 64L * (Integer.MAX_VALUE - 8)));
+			this.bits = new long[(int)((m + 63) >>> 6)];
+			this.numBits = bits.length * 64L;
+			this.numHashes = (int)Math.max(1, Math.min(MAX_HASHES, Math.round((double)numBits / _expectedRows * ln2)));
+		}
+		
+		boolean add(long _h1, long _h2) {
+			boolean added = false;
+			long combined = _h1;
+			for( int i=0; i<numHashes; i++ ) {
+				long bit = (combined & Long.MAX_VALUE) % numBits;
+				int word = (int)(bit >>> 6);
+				long mask = 1L << bit;
+				if( (bits[word] & mask) == 0 ) {
+					bits[word] |= mask;
+					added = true;
+				}
+				combined += _h2;
+			}
+			return added;
+		}
+	}
+	
+	private static class ExactDedup extends Dedup {
+		
+		private final static int SLOT_BYTES = 16;
+		private final static int SEGMENT_BITS = 26;
+		private final static long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+		private final static long MAX_SLOTS = 1L << 40;
+		private final static long MAX_KEYS = MAX_SLOTS - (MAX_SLOTS >>> 2);
+		
+		private ByteBuffer[] segments;
+		private long mask;
+		private long size = 0;
+		private long threshold;
+		
+		ExactDedup(long _expectedRows) {
+			long slots = Long.highestOneBit(Math.max(16L, _expectedRows + _expectedRows / 3));
+			if( slots < _expectedRows + _expectedRows / 3 ) slots <<= 1;
+			allocate(Math.min(slots, MAX_SLOTS));
+		}
+		
+		private void allocate(long _slots) {
+			int numSegments = (int)Math.max(1L, _slots >>> SEGMENT_BITS);
+			int segmentSlots = (int)Math.min(_slots, 1L << SEGMENT_BITS);
+			segments = new ByteBuffer[numSegments];
+			for( int i=0; i<numSegments; i++ ) {
+				segments[i] = ByteBuffer.allocateDirect(segmentSlots * SLOT_BYTES).order(ByteOrder.nativeOrder());
+			}
+			mask = _slots - 1;
+			threshold = _slots - (_slots >>> 2);
+		}
+		
+		boolean add(long _h1, long _h2) {
+			if( _h1 == 0L && _h2 == 0L ) _h2 = 1L;
+			if( size >= threshold ) grow();
+			if( insert(_h1, _h2) ) {
+				size++;
+				return true;
+			}
+			return false;
+		}
+		
+		/**
+		 * Linear probing from the slot picked by the first hash word; an 
+		 * all-zero slot is empty
+		 */
+		private boolean insert(long _h1, long _h2) {
+			long slot = _h1 & mask;
+			while( true ) {
+				ByteBuffer segment = segments[(int)(slot >>> SEGMENT_BITS)];
+				int offset = (int)(slot & SEGMENT_MASK) * SLOT_BYTES;
+				long a = segment.getLong(offset);
+				long b = segment.getLong(offset + 8);
+				if( a == 0L && b == 0L ) {
+					segment.putLong(offset, _h1);
+					segment.putLong(offset + 8, _h2);
+					return true;
+				}
+				if( a == _h1 && b == _h2 ) {
+					return false;
+				}
+				slot = (slot + 1) & mask;
+			}
+		}
+		
+		/**
+		 * Doubles the table; the old segments stay allocated until GC 
+		 * collects them, so this briefly needs three times their size
+		 */
+		private void grow() {
+			long slots = mask + 1;
+			if( slots >= MAX_SLOTS ) {
+				throw new IllegalStateException("dedup table is full at " + size + " keys");
+			}
+			ByteBuffer[] old = segments;
+			allocate(slots << 1);
+			for( ByteBuffer segment : old ) {
+				for( int offset=0; offset<segment.capacity(); offset+=SLOT_BYTES ) {
+					long a = segment.getLong(offset);
+					long b = segment.getLong(offset + 8);
+					if( a != 0L || b != 0L ) {
+						insert(a, b);
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Streaming 128-bit hash of field values built on the MurmurHash3 
+	 * x64_128 block and finalization steps; strings are fed four chars per
+	 * 64-bit word, and each field is prefixed with its type and length
+	 */
+	static class KeyHash {
+		
+		private final static long C1 = 0x87c37b91114253d5L;
+		private final static long C2 = 0x4cf5ad432745937fL;
+		private final static long TAG_NULL = 0L;
+		private final static long TAG_STRING = 1L << 56;
+		private final static long TAG_INTEGRAL = 2L << 56;
+		private final static long TAG_REAL = 3L << 56;
+		private final static long TAG_BOOLEAN = 4L << 56;
+		private final static long TAG_DATE = 5L << 56;
+		private final static long TAG_BYTES = 6L << 56;
+		private final static long TAG_BIG_INTEGER = 7L << 56;
+		private final static long TAG_DECIMAL = 8L << 56;
+		private final static long TAG_ARRAY = 9L << 56;
+		private final static BigInteger MIN_LONG = BigInteger.valueOf(Long.MIN_VALUE);
+		private final static BigInteger MAX_LONG = BigInteger.valueOf(Long.MAX_VALUE);
+		
+		long h1;
+		long h2;
+		private long pending;
+		private long words;
+		
+		void reset(long _seed) {
+			h1 = _seed;
+			h2 = _seed;
+			words = 0;
+		}
+		
+		void fields(Object[] _fields) {
+			if( _fields == null ) return;
+			for( Object field : _fields ) {
+				field(field);
+			}
+		}
+		
+		void field(Object _field) {
+			if( _field == null ) {
+				word(TAG_NULL);
+			}
+			else if( _field instanceof CharSequence ) {
+				chars((CharSequence)_field);
+			}
+			else if( _field instanceof Long || _field instanceof Integer || _field instanceof Short || _field instanceof Byte ) {
+				word(TAG_INTEGRAL);
+				word(((Number)_field).longValue());
+			}
+			else if( _field instanceof Double || _field instanceof Float ) {
+				word(TAG_REAL);
+				word(Double.doubleToLongBits(((Number)_field).doubleValue()));
+			}
+			else if( _field instanceof Boolean ) {
+				word(TAG_BOOLEAN | (((Boolean)_field).booleanValue() ? 1L : 0L));
+			}
+			else if( _field instanceof Date ) {
+				word(TAG_DATE);
+				word(((Date)_field).getTime());
+			}
+			else if( _field instanceof Character ) {
+				word(TAG_STRING | 1L);
+				word(((Character)_field).charValue());
+			}
+			else if( _field instanceof byte[] ) {
+				bytes(TAG_BYTES, (byte[])_field);
+			}
+			else if( _field instanceof BigInteger ) {
+				integer((BigInteger)_field);
+			}
+			else if( _field instanceof BigDecimal ) {
+				decimal((BigDecimal)_field);
+			}
+			else if( _field instanceof Object[] ) {
+				Object[] a = (Object[])_field;
+				word(TAG_ARRAY | a.length);
+				for( Object element : a ) {
+					field(element);
+				}
+			}
+			else if( _field.getClass().isArray() ) {
+				int len = Array.getLength(_field);
+				word(TAG_ARRAY | len);
+				for( int i=0; i<len; i++ ) {
+					field(Array.get(_field, i));
+				}
+			}
+			else {
+				chars(_field.toString());
+			}
+		}
+		
+		/**
+		 * Values that fit in a long hash as TAG_INTEGRAL, like Long
+		 */
+		private void integer(BigInteger _v) {
+			if( _v.compareTo(MIN_LONG) >= 0 && _v.compareTo(MAX_LONG) <= 0 ) {
+				word(TAG_INTEGRAL);
+				word(_v.longValue());
+			}
+			else {
+				bytes(TAG_BIG_INTEGER, _v.toByteArray());
+			}
+		}
+		
+		/**
+		 * Trailing zeros are stripped first so that equal values with 
+		 * different scales hash the same
+		 */
+		private void decimal(BigDecimal _v) {
+			if( _v.signum() == 0 ) {
+				integer(BigInteger.ZERO);
+				return;
+			}
+			BigDecimal v = _v.stripTrailingZeros();
+			if( v.scale() <= 0 ) {
+				integer(v.toBigInteger());
+			}
+			else {
+				word(TAG_DECIMAL | v.scale());
+				bytes(TAG_DECIMAL, v.unscaledValue().toByteArray());
+			}
+		}
+		
+		private void chars(CharSequence _s) {
+			final int len = _s.length();
+			word(TAG_STRING | len);
+			int i = 0;
+			for( ; i+4<=len; i+=4 ) {
+				word(_s.charAt(i) | ((long)_s.charAt(i+1) << 16) | ((long)_s.charAt(i+2) << 32) | ((long)_s.charAt(i+3) << 48));
+			}
+			if( i < len ) {
+				long k = 0L;
+				for( int shift=0; i<len; i++, shift+=16 ) {
+					k |= (long)_s.charAt(i) << shift;
+				}
+				word(k);
+			}
+		}
+		
+		private void bytes(long _tag, byte[] _b) {
+			word(_tag | _b.length);
+			long k = 0L;
+			int shift = 0;
+			for( byte b : _b ) {
+				k |= (b & 0xFFL) << shift;
+				shift += 8;
+				if( shift == 64 ) {
+					word(k);
+					k = 0L;
+					shift = 0;
+				}
 			}
+			if( shift > 0 ) word(k);
+		}
+		
+		void word(long _k) {
+			if( (words++ & 1L) == 0L ) {
+				pending = _k;
+				return;
+			}
+			long k1 = pending, k2 = _k;
+			k1 *= C1; k1 = Long.rotateLeft(k1, 31); k1 *= C2; h1 ^= k1;
+			h1 = Long.rotateLeft(h1, 27); h1 += h2; h1 = h1 * 5 + 0x52dce729;
+			k2 *= C2; k2 = Long.rotateLeft(k2, 33); k2 *= C1; h2 ^= k2;
+			h2 = Long.rotateLeft(h2, 31); h2 += h1; h2 = h2 * 5 + 0x38495ab5;
+		}
+		
+		void finish() {
+			if( (words & 1L) == 1L ) {
+				long k1 = pending;
+				k1 *= C1; k1 = Long.rotateLeft(k1, 31); k1 *= C2; h1 ^= k1;
+			}
+			h1 ^= words * 8;
+			h2 ^= words * 8;
+			h1 += h2;
+			h2 += h1;
+			h1 = fmix(h1);
+			h2 = fmix(h2);
+			h1 += h2;
+			h2 += h1;
+		}
+		
+		private static long fmix(long _k) {
+			_k ^= _k >>> 33;
+			_k *= 0xff51afd7ed558ccdL;
+			_k ^= _k >>> 33;
+			_k *= 0xc4ceb9fe1a85ec53L;
+			_k ^= _k >>> 33;
+			return _k;
+		}
+	}
 
-			if( obj != null ) {
-				if( escapeString == null ) {
-					sb.append( String.valueOf(obj) );					
-				} else {	
-					sb.append( escapeString + String.valueOf(obj) + escapeString );
+	/**
+	 * Loads a UTF-8 reference file into a lookup table registered under the
+	 * name for inList(); one value per line, surrounding whitespace, blank 
+	 * lines, and a leading byte order mark ignored
+	 * 
+	 * Loading under a name already in use replaces that table for 
+	 * subsequent lookups.  The replaced table's off-heap buffers are only 
+	 * released by a later garbage collection, so a reload briefly holds 
+	 * both tables; allow twice the table size in -XX:MaxDirectMemorySize.
+	 * 
+	 * {example} loadList("country", "/data/ref/iso_countries.txt")
+	 * 
+	 * @param _tableName name used by inList()
+	 * @param _path path of the reference file
+	 * @return the loaded table
+	 * @throws IOException if the file cannot be read
+	 * @since 1.6.0
+	 */
+	public static LookupTable loadList(String _tableName, String _path) throws IOException {
+		return loadList(_tableName, _path, UTF8_CHARSET);
+	}
+
+	/**
+	 * Loads a reference file in the given charset into a lookup table 
+	 * registered under the name for inList()
+	 * 
+	 * @param _tableName name used by inList()
+	 * @param _path path of the reference file
+	 * @param _charset charset of the file
+	 * @return the loaded table
+	 * @throws IOException if the file cannot be read
+	 * @since 1.6.0
+	 */
+	public static LookupTable loadList(String _tableName, String _path, String _charset) throws IOException {
+		if( _tableName == null ) {
+			throw new IllegalArgumentException(ERROR_MESSAGE_LIST_NAME);
+		}
+		List<String> values = new ArrayList<String>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(_path), Charset.forName(_charset)));
+		try {
+			String line;
+			boolean first = true;
+			while( (line = reader.readLine()) != null ) {
+				if( first && line.length() > 0 && line.charAt(0) == BYTE_ORDER_MARK ) {
+					line = line.substring(1);
+				}
+				first = false;
+				line = line.trim();
+				if( line.length() > 0 ) {
+					values.add(line);
+				}
+			}
+		}
+		finally {
+			reader.close();
+		}
+		LookupTable table = new LookupTable(values);
+		LISTS.put(_tableName, table);
+		return table;
+	}
+
+	/**
+	 * inList: true if the value is in the reference list loaded under the 
+	 * table name with loadList()
+	 * 
+	 * {talendTypes} String
+	 * 
+	 * {Category} BRules
+	 * 
+	 * {param} string("country") tableName: name given to loadList()
+	 * {param} string("US") input: The value to look up
+	 * 
+	 * {example} inList("country", "US") # true
+	 * 
+	 * @since 1.6.0
+	 */
+	public static boolean inList(String _tableName, String _value) {
+		return list(_tableName).contains(_value);
+	}
+
+	private static LookupTable list(String _tableName) {
+		LookupTable table = (_tableName == null) ? null : LISTS.get(_tableName);
+		if( table == null ) {
+			throw new IllegalArgumentException("no list loaded as '" + _tableName + "'");
+		}
+		return table;
+	}
+
+	/**
+	 * An immutable set of strings held outside the Java heap
+	 * 
+	 * Values are stored back to back as chars in one direct buffer, indexed 
+	 * by an open-addressing table of (hash, offset, length) slots at most 
+	 * half full.  A lookup reads the String's cached hash code and compares 
+	 * chars in place, so it allocates nothing.  Instances are shared by all
+	 * threads.
+	 * 
+	 * The table is sized once from the loaded values and never grows; it 
+	 * takes 24 to 48 bytes of direct memory per value plus 2 per char, for 
+	 * up to 2^26 values and 2^30 chars.
+	 * 
+	 * @since 1.6.0
+	 */
+	public static class LookupTable {
+		
+		private final static int SLOT_INTS = 3;
+		private final static int MAX_VALUES = 1 << 26;
+		
+		private final IntBuffer slots;
+		private final CharBuffer chars;
+		private final int mask;
+		private final int size;
+		
+		LookupTable(List<String> _values) {
+			if( _values.size() > MAX_VALUES ) {
+				throw new IllegalArgumentException("list is too large; at most " + MAX_VALUES + " values are supported");
+			}
+			long numChars = 0;
+			for( String value : _values ) {
+				numChars += value.length();
+			}
+			if( numChars > Integer.MAX_VALUE / 2 ) {
+				throw new IllegalArgumentException("list is too large; at most 1G chars are supported");
+			}
+			int capacity = Integer.highestOneBit(Math.max(8, _values.size() * 2 - 1)) << 1;
+			this.mask = capacity - 1;
+			this.slots = ByteBuffer.allocateDirect(capacity * SLOT_INTS * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+			this.chars = ByteBuffer.allocateDirect((int)numChars * 2).order(ByteOrder.nativeOrder()).asCharBuffer();
+			int count = 0;
+			int offset = 0;
+			for( String value : _values ) {
+				int slot = find(value);
+				if( slots.get(slot * SLOT_INTS + 1) != 0 ) continue;
+				slots.put(slot * SLOT_INTS, value.hashCode());
+				slots.put(slot * SLOT_INTS + 1, offset + 1);
+				slots.put(slot * SLOT_INTS + 2, value.length());
+				for( int i=0; i<value.length(); i++ ) {
+					chars.put(offset++, value.charAt(i));
 				}
+				count++;
 			}
+			this.size = count;
 		}
 		
-		return sb.toString();
+		/**
+		 * @param _value value to look up
+		 * @return true if the value is in the table
+		 */
+		public boolean contains(String _value) {
+			if( _value == null ) return false;
+			return slots.get(find(_value) * SLOT_INTS + 1) != 0;
+		}
+		
+		/**
+		 * @return the number of distinct values
+		 */
+		public int size() {
+			return size;
+		}
+		
+		/**
+		 * @return the slot holding the value, or the empty slot where it 
+		 * would go
+		 */
+		private int find(String _value) {
+			int hash = _value.hashCode();
+			int length = _value.length();
+			int slot = spread(hash) & mask;
+			while( true ) {
+				int base = slot * SLOT_INTS;
+				int offset = slots.get(base + 1);
+				if( offset == 0 ) return slot;
+				if( slots.get(base) == hash && slots.get(base + 2) == length && equalsAt(offset - 1, _value) ) {
+					return slot;
+				}
+				slot = (slot + 1) & mask;
+			}
+		}
+		
+		private boolean equalsAt(int _offset, String _value) {
+			for( int i=0; i<_value.length(); i++ ) {
+				if( chars.get(_offset + i) != _value.charAt(i) ) return false;
+			}
+			return true;
+		}
+		
+		private static int spread(int _hash) {
+			int h = _hash * 0x9E3779B9;
+			return h ^ (h >>> 16);
+		}
+	}
+
+	/**
+	 * Feeds the KeyHash word stream to a SHA-256 digest, eight big-endian 
+	 * bytes per word
+	 */
+	static final class DigestKey extends KeyHash {
+		
+		private final static int BUFFER_SIZE = 512;
+		
+		private final MessageDigest digest;
+		private final byte[] buffer = new byte[BUFFER_SIZE];
+		private int length = 0;
+		
+		DigestKey() {
+			try {
+				digest = MessageDigest.getInstance("SHA-256");
+			}
+			catch(NoSuchAlgorithmException exc) {
+				throw new IllegalStateException(exc);
+			}
+		}
+		
+		void reset(long _seed) {
+			digest.reset();
+			length = 0;
+		}
+		
+		void word(long _k) {
+			if( length == BUFFER_SIZE ) {
+				digest.update(buffer, 0, length);
+				length = 0;
+			}
+			for( int shift=56; shift>=0; shift-=8 ) {
+				buffer[length++] = (byte)(_k >>> shift);
+			}
+		}
+		
+		byte[] digest() {
+			digest.update(buffer, 0, length);
+			length = 0;
+			return digest.digest();
+		}
+	}
+
+	/**
+	 * Opt-in memoization of pure routines for low-cardinality columns
+	 * 
+	 * Each routine gets its own size-bounded LRU cache when enabled, either
+	 * at startup with a system property naming the maximum number of 
+	 * entries, or at runtime with setMaxEntries()
+	 * 
+	 * <pre>
+	 * -Dbrules.memo.isPhoneNum=10000
+	 * -Dbrules.memo.trimLeadingZeros=1000
+	 * </pre>
+	 * 
+	 * Job code is unchanged; the routines consult the cache themselves.  
+	 * Compiled rule sets call the underlying checks directly and are not 
+	 * memoized.
+	 * 
+	 * @since 1.6.0
+	 */
+	public static class Memo {
+		
+		/**
+		 * The routines that can be memoized
+		 */
+		public enum Routine {
+			IS_PHONE_NUM("isPhoneNum"),
+			OK_CHARS("okChars"),
+			IS_JSON("isJSON"),
+			HAS_JSON_PATH("hasJSONPath"),
+			TRIM_LEADING_ZEROS("trimLeadingZeros");
+			
+			private final String routineName;
+			
+			private Routine(String _routineName) {
+				this.routineName = _routineName;
+			}
+			
+			public String getRoutineName() {
+				return routineName;
+			}
+		}
+		
+		public final static String PROPERTY_PREFIX = "brules.memo.";
+		
+		private final static AtomicReferenceArray<LruCache<Key, Object>> caches = new AtomicReferenceArray<LruCache<Key, Object>>(Routine.values().length);
+		
+		static {
+			for( Routine r : Routine.values() ) {
+				int maxEntries = Integer.getInteger(PROPERTY_PREFIX + r.getRoutineName(), 0);
+				if( maxEntries > 0 ) {
+					setMaxEntries(r, maxEntries);
+				}
+			}
+		}
+		
+		/**
+		 * Replaces the routine's cache with an empty one of the given size
+		 * 
+		 * @param _routine routine to memoize
+		 * @param _maxEntries maximum cached results; 0 turns memoization off
+		 */
+		public static void setMaxEntries(Routine _routine, int _maxEntries) {
+			if( _maxEntries < 0 ) throw new IllegalArgumentException("maxEntries must be >= 0");
+			caches.set(_routine.ordinal(), (_maxEntries == 0) ? null : new LruCache<Key, Object>(_maxEntries));
+		}
+		
+		/**
+		 * @return the routine's cache statistics; all zero when not memoized
+		 */
+		public static MemoStats snapshot(Routine _routine) {
+			LruCache<Key, Object> cache = caches.get(_routine.ordinal());
+			if( cache == null ) {
+				return new MemoStats(_routine.getRoutineName(), 0, 0L, 0L, 0L, 0);
+			}
+			LruCache.Stats stats = cache.stats();
+			return new MemoStats(_routine.getRoutineName(), stats.size, stats.hits, stats.misses, stats.evictions, stats.maxEntries);
+		}
+		
+		/**
+		 * @return statistics for every routine, in Routine order
+		 */
+		public static List<MemoStats> snapshot() {
+			List<MemoStats> stats = new ArrayList<MemoStats>();
+			for( Routine r : Routine.values() ) {
+				stats.add(snapshot(r));
+			}
+			return stats;
+		}
+		
+		/**
+		 * @return a lookup key bound to the routine's cache, or null when 
+		 * the routine isn't memoized
+		 */
+		static Key key(Routine _routine, Object _a, Object _b, int _flags) {
+			LruCache<Key, Object> cache = caches.get(_routine.ordinal());
+			return (cache == null) ? null : new Key(cache, _a, _b, _flags);
+		}
+		
+		/**
+		 * @return the cached result, or null on a miss or a null key
+		 */
+		static Object get(Key _key) {
+			return (_key == null) ? null : _key.cache.get(_key);
+		}
+		
+		static void put(Key _key, Object _value) {
+			if( _key != null && _value != null ) {
+				_key.cache.put(_key, _value);
+			}
+		}
+		
+		static final class Key {
+			
+			final LruCache<Key, Object> cache;
+			private final Object a;
+			private final Object b;
+			private final int flags;
+			private final int hash;
+			
+			Key(LruCache<Key, Object> _cache, Object _a, Object _b, int _flags) {
+				this.cache = _cache;
+				this.a = _a;
+				this.b = _b;
+				this.flags = _flags;
+				int h = (_a == null) ? 0 : _a.hashCode();
+				h = h * 31 + ((_b == null) ? 0 : _b.hashCode());
+				this.hash = h * 31 + _flags;
+			}
+			
+			public int hashCode() {
+				return hash;
+			}
+			
+			public boolean equals(Object _obj) {
+				if( !(_obj instanceof Key) ) return false;
+				Key k = (Key)_obj;
+				return hash == k.hash && flags == k.flags && 
+						(a == null ? k.a == null : a.equals(k.a)) && 
+						(b == null ? k.b == null : b.equals(k.b));
+			}
+		}
+	}
+	
+	/**
+	 * Cache counters for one memoized routine
+	 * 
+	 * @since 1.6.0
+	 */
+	public static class MemoStats {
+		
+		private final String routineName;
+		private final int size;
+		private final long hits;
+		private final long misses;
+		private final long evictions;
+		private final int maxEntries;
+		
+		MemoStats(String _routineName, int _size, long _hits, long _misses, long _evictions, int _maxEntries) {
+			this.routineName = _routineName;
+			this.size = _size;
+			this.hits = _hits;
+			this.misses = _misses;
+			this.evictions = _evictions;
+			this.maxEntries = _maxEntries;
+		}
+		
+		public String getRoutineName() {
+			return routineName;
+		}
+		
+		/**
+		 * @return results currently cached
+		 */
+		public int getSize() {
+			return size;
+		}
+		
+		/**
+		 * @return capacity; 0 when the routine isn't memoized
+		 */
+		public int getMaxEntries() {
+			return maxEntries;
+		}
+		
+		public long getHits() {
+			return hits;
+		}
+		
+		public long getMisses() {
+			return misses;
+		}
+		
+		public long getEvictions() {
+			return evictions;
+		}
+		
+		/**
+		 * @return fraction of lookups answered from the cache
+		 */
+		public double getHitRate() {
+			long lookups = hits + misses;
+			return (lookups == 0) ? 0.0 : (double)hits / lookups;
+		}
+		
+		public String toString() {
+			return routineName + " memo: size=" + size + "/" + maxEntries + " hits=" + hits + 
+					" misses=" + misses + " evictions=" + evictions;
+		}
+	}
+	
+	/**
+	 * An LRU cache split into independently locked segments so that 
+	 * threads seldom contend; each segment is an access-order LinkedHashMap
+	 * that evicts its eldest entry when full
+	 */
+	static final class LruCache<K, V> {
+		
+		private final static int MAX_SEGMENTS = 16;
+		private final static int MIN_SEGMENT_ENTRIES = 16;
+		
+		private final Segment<K, V>[] segments;
+		
+		@SuppressWarnings("unchecked")
+		LruCache(int _maxEntries) {
+			int n = 1;
+			while( n < MAX_SEGMENTS && _maxEntries / (n * 2) >= MIN_SEGMENT_ENTRIES ) {
+				n <<= 1;
+			}
+			segments = (Segment<K, V>[])new Segment<?, ?>[n];
+			for( int i=0; i<n; i++ ) {
+				segments[i] = new Segment<K, V>((_maxEntries + n - 1) / n);
+			}
+		}
+		
+		private Segment<K, V> segment(K _key) {
+			int h = _key.hashCode() * 0x9E3779B9;
+			return segments[(h >>> 16) & (segments.length - 1)];
+		}
+		
+		/**
+		 * @return the cached value, or null on a miss
+		 */
+		V get(K _key) {
+			Segment<K, V> segment = segment(_key);
+			synchronized(segment) {
+				V value = segment.get(_key);
+				if( value == null ) {
+					segment.misses++;
+				}
+				else {
+					segment.hits++;
+				}
+				return value;
+			}
+		}
+		
+		void put(K _key, V _value) {
+			Segment<K, V> segment = segment(_key);
+			synchronized(segment) {
+				segment.put(_key, _value);
+			}
+		}
+		
+		Stats stats() {
+			long hits = 0, misses = 0, evictions = 0;
+			int size = 0, maxEntries = 0;
+			for( Segment<K, V> segment : segments ) {
+				synchronized(segment) {
+					hits += segment.hits;
+					misses += segment.misses;
+					evictions += segment.evictions;
+					size += segment.size();
+					maxEntries += segment.maxEntries;
+				}
+			}
+			return new Stats(size, hits, misses, evictions, maxEntries);
+		}
+		
+		/**
+		 * Counters summed over all segments at one point in time
+		 */
+		static final class Stats {
+			
+			final int size;
+			final long hits;
+			final long misses;
+			final long evictions;
+			final int maxEntries;
+			
+			Stats(int _size, long _hits, long _misses, long _evictions, int _maxEntries) {
+				this.size = _size;
+				this.hits = _hits;
+				this.misses = _misses;
+				this.evictions = _evictions;
+				this.maxEntries = _maxEntries;
+			}
+		}
+		
+		@SuppressWarnings("serial")
+		static final class Segment<K, V> extends LinkedHashMap<K, V> {
+			
+			final int maxEntries;
+			long hits = 0;
+			long misses = 0;
+			long evictions = 0;
+			
+			Segment(int _maxEntries) {
+				super(16, 0.75f, true);
+				this.maxEntries = _maxEntries;
+			}
+			
+			protected boolean removeEldestEntry(Map.Entry<K, V> _eldest) {
+				if( size() > maxEntries ) {
+					evictions++;
+					return true;
+				}
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * Asynchronous forms of the slow routines, for callers such as request
+	 * handlers that must not block on a large or pathological input
+	 * 
+	 * Tasks run on a pluggable executor.  By default that is a virtual 
+	 * thread per task on JDK 21 and later, and a cached pool of daemon 
+	 * threads on older JREs.
+	 * 
+	 * {example} Async.await(Async.isXML(payload), 2, TimeUnit.SECONDS)
+	 * 
+	 * @since 1.6.0
+	 */
+	public static class Async {
+		
+		private static volatile ExecutorService executor = null;
+		
+		/**
+		 * Sets the executor for subsequent tasks; the caller keeps ownership
+		 * and shuts it down
+		 * 
+		 * @param _executor executor to use, or null for the default
+		 */
+		public static void setExecutor(ExecutorService _executor) {
+			executor = _executor;
+		}
+		
+		static ExecutorService executor() {
+			ExecutorService e = executor;
+			return (e != null) ? e : DefaultExecutor.INSTANCE;
+		}
+		
+		/**
+		 * Created on first use
+		 */
+		private static class DefaultExecutor {
+			
+			final static ExecutorService INSTANCE = create();
+			
+			private static ExecutorService create() {
+				
+				// found by reflection so that this class still loads on JREs before 21
+				
+				try {
+					Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+					return (ExecutorService)m.invoke(null);
+				}
+				catch(Exception ignore) {}
+				
+				final AtomicInteger threadNumber = new AtomicInteger();
+				return Executors.newCachedThreadPool(new ThreadFactory() {
+					public Thread newThread(Runnable r) {
+						Thread t = new Thread(r, "brules-async-" + threadNumber.incrementAndGet());
+						t.setDaemon(true);
+						return t;
+					}
+				});
+			}
+		}
+		
+		/**
+		 * Runs any task, such as a group of routine calls, on the executor
+		 * 
+		 * @param _task task to run
+		 * @return the pending result
+		 */
+		public static <T> Future<T> submit(Callable<T> _task) {
+			return executor().submit(_task);
+		}
+		
+		/**
+		 * Waits for a result, cancelling the task if the wait times out or 
+		 * is interrupted
+		 * 
+		 * Cancelling interrupts the task's thread; a routine stuck in a 
+		 * parser stops at the parser's next interruption point, but the 
+		 * caller is released immediately either way
+		 * 
+		 * @param _future a result from one of the Async methods
+		 * @param _timeout longest time to wait
+		 * @param _unit unit of the timeout
+		 * @return the routine's result
+		 * @throws TimeoutException if the result is not ready in time
+		 * @throws ExecutionException if the routine threw; the cause is its exception
+		 * @throws InterruptedException if the calling thread is interrupted
+		 */
+		public static <T> T await(Future<T> _future, long _timeout, TimeUnit _unit) 
+				throws TimeoutException, ExecutionException, InterruptedException {
+			try {
+				return _future.get(_timeout, _unit);
+			}
+			catch(TimeoutException exc) {
+				_future.cancel(true);
+				throw exc;
+			}
+			catch(InterruptedException exc) {
+				_future.cancel(true);
+				throw exc;
+			}
+		}
+		
+		/**
+		 * @see BRules#isXML(String)
+		 */
+		public static Future<Boolean> isXML(final String _xml) {
+			return submit(new Callable<Boolean>() {
+				public Boolean call() throws Exception {
+					return BRules.isXML(_xml);
+				}
+			});
+		}
+		
+		/**
+		 * @see BRules#isXML(String, String)
+		 */
+		public static Future<Boolean> isXML(final String _xml, final String _charset) {
+			return submit(new Callable<Boolean>() {
+				public Boolean call() throws Exception {
+					return BRules.isXML(_xml, _charset);
+				}
+			});
+		}
+		
+		/**
+		 * @see BRules#isJSON(String)
+		 */
+		public static Future<Boolean> isJSON(final String _json) {
+			return submit(new Callable<Boolean>() {
+				public Boolean call() {
+					return BRules.isJSON(_json);
+				}
+			});
+		}
+		
+		/**
+		 * @see BRules#hasJSONPath(String, String)
+		 */
+		public static Future<Boolean> hasJSONPath(final String _json, final String _path) {
+			return submit(new Callable<Boolean>() {
+				public Boolean call() throws Exception {
+					return BRules.hasJSONPath(_json, _path);
+				}
+			});
+		}
+		
+		/**
+		 * @see BRules#isPhoneNum(String, String, boolean)
+		 */
+		public static Future<Boolean> isPhoneNum(final String _countryCode, final String _toValidate, final boolean _loose) {
+			return submit(new Callable<Boolean>() {
+				public Boolean call() {
+					return BRules.isPhoneNum(_countryCode, _toValidate, _loose);
+				}
+			});
+		}
 	}
 }
@@ -19,14 +19,34 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Pattern;
 
+import javax.management.ObjectName;
+
+import org.apache.commons.lang3.StringUtils;
 import org.joda.time.LocalDate;
+import org.joda.time.Years;
 import org.junit.Test;
 
 public class BRulesTest {
@@ -102,6 +122,48 @@ public class BRulesTest {
 		assertFalse( BRules.xor("one", "two", "three") );
 	}
 	
+	@Test
+	public void atLeast() {
+		assertTrue( BRules.atLeast(2, "one", "", "three") );
+		assertTrue( BRules.atLeast(2, "one", "two", null, null) );
+		assertTrue( BRules.atLeast(0, "") );
+		assertFalse( BRules.atLeast(2, "one", "", null) );
+		assertFalse( BRules.atLeast(4, "one", "two", "three") );
+		assertFalse( BRules.atLeast(1, (Object[])null) );
+	}
+	
+	@Test
+	public void exactly() {
+		assertTrue( BRules.exactly(2, "one", "", "three") );
+		assertTrue( BRules.exactly(0, "", null) );
+		assertFalse( BRules.exactly(1, "one", "two") );
+		assertFalse( BRules.exactly(3, "one", "two") );
+		assertFalse( BRules.exactly(1, (Object[])null) );
+	}
+	
+	@Test
+	public void none() {
+		assertTrue( BRules.none("", null) );
+		assertTrue( BRules.none((Object[])null) );
+		assertFalse( BRules.none("", "two") );
+		assertFalse( BRules.none(new Long(0L)) );
+	}
+	
+	@Test
+	public void setMask() {
+		assertEquals( 5L, BRules.setMask("one", "", "three") );
+		assertEquals( 0L, BRules.setMask(null, "") );
+		assertEquals( 0L, BRules.setMask((Object[])null) );
+		Object[] objs = new Object[64];
+		objs[63] = "last";
+		assertEquals( Long.MIN_VALUE, BRules.setMask(objs) );
+	}
+	
+	@Test(expected=java.lang.IllegalArgumentException.class)
+	public void setMaskTooManyArgs() {
+		BRules.setMask(new Object[65]);
+	}
+	
 	@Test
 	public void isXML() throws Exception {
 		assertTrue( BRules.isXML("<message>hello</message>", "ISO8859_1") );
@@ -151,11 +213,16 @@ public class BRulesTest {
 		assertTrue(BRules.isBlank(null));
 		assertTrue(BRules.isBlank(""));
 		assertTrue(BRules.isBlank("    "));
+		assertTrue(BRules.isBlank(" \t\r\n\u000B\f\u001C"));
+		assertTrue(BRules.isBlank("\u2003\u3000 "));
 	}
 	
 	@Test
 	public void isNotBlank() {
 		assertFalse(BRules.isBlank("hello"));
+		assertFalse(BRules.isBlank("   x"));
+		assertFalse(BRules.isBlank("\u00A0"));
+		assertFalse(BRules.isBlank(" \u00E9 "));
 	}
 
 	// TODO: restore charset tests with a separate Cp1252 file
@@ -351,6 +418,20 @@ public class BRulesTest {
 		assertEquals("1000000", BRules.pad(1000000L, 6, '0'));
 	}
 
+	@Test
+	public void padPrimitive() {
+		assertEquals("000100", BRules.pad(100, 6, '0'));
+		assertEquals("0", BRules.pad(0, 0, '0'));
+		assertEquals("  -42", BRules.pad(-42, 5, ' '));
+		assertEquals("0000000000000012345678901", BRules.pad(12345678901L, 25, '0'));
+		assertEquals(String.valueOf(Long.MIN_VALUE), BRules.pad(Long.MIN_VALUE, 3, '0'));
+		assertEquals(String.valueOf(Integer.MIN_VALUE), BRules.pad(Integer.MIN_VALUE, -1, '0'));
+		assertEquals(StringUtils.leftPad("-7", 100, '*'), BRules.pad(-7L, 100, '*'));
+		for( long n : new long[] { 1L, 9L, 10L, 99L, 100L, -1L, -10L, Long.MAX_VALUE, 1000000000000000000L } ) {
+			assertEquals(StringUtils.leftPad(String.valueOf(n), 12, '0'), BRules.pad(n, 12, '0'));
+		}
+	}
+	
 	@Test
 	public void padWithChar() {
 		String[] a = {
@@ -418,6 +499,26 @@ public class BRulesTest {
 		assertEquals("abc", BRules.trimLeadingZeros(a[5]));
 	}
 	
+	@Test
+	public void trimLeadingZerosLong() {
+		assertEquals("12345678901234567890", BRules.trimLeadingZeros("0012345678901234567890"));
+		assertEquals("-12345678901", BRules.trimLeadingZeros("-0012345678901"));
+		assertEquals("7", BRules.trimLeadingZeros("+007"));
+		assertEquals("7", BRules.trimLeadingZeros(" 007 "));
+		assertEquals("0", BRules.trimLeadingZeros("-000"));
+		assertEquals("-", BRules.trimLeadingZeros("-"));
+		assertEquals("   ", BRules.trimLeadingZeros("   "));
+		assertEquals("007.5", BRules.trimLeadingZeros("007.5"));
+		assertEquals("0x1", BRules.trimLeadingZeros("0x1"));
+		
+		String s = "101";
+		assertTrue( s == BRules.trimLeadingZeros(s) );
+		s = "-101";
+		assertTrue( s == BRules.trimLeadingZeros(s) );
+		s = "12a";
+		assertTrue( s == BRules.trimLeadingZeros(s) );
+	}
+	
 	@Test
 	public void ageInYearsToday() {
 
@@ -484,6 +585,100 @@ public class BRulesTest {
 		assertEquals( 34, (int)BRules.ageInYears(birthDate, asOfDate) );
 	}
 
+	@Test
+	public void ageInYearsMatchesJoda() {
+		Random r = new Random(29);
+		long from = new LocalDate(1900, 1, 1).toDate().getTime();
+		long span = new LocalDate(2100, 1, 1).toDate().getTime() - from;
+		for( int i=0; i<100000; i++ ) {
+			Date birthDate = new Date(from + (long)(r.nextDouble() * span));
+			Date asOfDate = new Date(from + (long)(r.nextDouble() * span));
+			assertEquals( Years.yearsBetween(new LocalDate(birthDate), new LocalDate(asOfDate)).getYears(), 
+					(int)BRules.ageInYears(birthDate, asOfDate) );
+		}
+	}
+	
+	@Test
+	public void ageInYearsLeapDay() {
+		LocalDate leapBirth = new LocalDate(2000, 2, 29);
+		LocalDate[] asOfs = { new LocalDate(2001, 2, 28), new LocalDate(2001, 3, 1), new LocalDate(2004, 2, 28), 
+				new LocalDate(2004, 2, 29), new LocalDate(1999, 2, 28), new LocalDate(1996, 2, 29) };
+		for( LocalDate asOf : asOfs ) {
+			assertEquals( Years.yearsBetween(leapBirth, asOf).getYears(), 
+					(int)BRules.ageInYears(leapBirth.toDate(), asOf.toDate()) );
+		}
+		assertEquals( 0, BRules.ageInYears(new LocalDate(2003, 3, 1).toDate(), new LocalDate(2004, 2, 29).toDate()).intValue() );
+	}
+	
+	@Test
+	public void ageInYearsEpochDay() {
+		assertEquals( 16109L, BRules.toEpochDay(new LocalDate(2014, 2, 8).toDate()).longValue() );
+		assertEquals( 0L, BRules.toEpochDay(new Date(0L), "UTC").longValue() );
+		assertEquals( -1L, BRules.toEpochDay(new Date(0L), "America/New_York").longValue() );
+		assertNull( BRules.toEpochDay(null) );
+		
+		assertEquals( 34, BRules.ageInYears(3690L, 16109L) );
+		assertEquals( -34, BRules.ageInYears(16109L, 3690L) );
+		assertEquals( 34, (int)BRules.ageInYears(new LocalDate(1980, 2, 8).toDate(), 16109L) );
+		assertNull( BRules.ageInYears((Date)null, 16109L) );
+		
+		Date birth = new Date(new LocalDate(1980, 2, 9).toDateTimeAtStartOfDay(org.joda.time.DateTimeZone.UTC).getMillis() - 1);
+		Date asOf = new Date(new LocalDate(2014, 2, 8).toDateTimeAtStartOfDay(org.joda.time.DateTimeZone.UTC).getMillis() + 1);
+		assertEquals( 34, (int)BRules.ageInYears(birth, asOf, "UTC") );
+		assertEquals( 33, (int)BRules.ageInYears(birth, asOf, "Asia/Tokyo") );
+		assertEquals( 33, (int)BRules.ageInYears(birth, 16109L, "Asia/Tokyo") );
+	}
+	
+	@Test
+	public void isDate() {
+		assertTrue( BRules.isDate("2014-02-08", "yyyy-MM-dd") );
+		assertTrue( BRules.isDate("2012-02-29", "yyyy-MM-dd") );
+		assertTrue( BRules.isDate("2014-2-8", "yyyy-MM-dd") );
+		assertTrue( BRules.isDate("02/08/2014", "MM/dd/yyyy") );
+		assertTrue( BRules.isDate("08-Feb-2014 13:45", "dd-MMM-yyyy HH:mm") );
+		assertFalse( BRules.isDate("2014-02-29", "yyyy-MM-dd") );
+		assertFalse( BRules.isDate("2014-13-01", "yyyy-MM-dd") );
+		assertFalse( BRules.isDate("2014-04-31", "yyyy-MM-dd") );
+		assertFalse( BRules.isDate("02/30/2014", "MM/dd/yyyy") );
+		assertFalse( BRules.isDate("hello", "yyyy-MM-dd") );
+		assertFalse( BRules.isDate(null, "yyyy-MM-dd") );
+		assertFalse( BRules.isDate("", "yyyy-MM-dd") );
+	}
+	
+	@Test
+	public void toDate() {
+		assertEquals( new LocalDate(2014, 2, 8).toDate(), BRules.toDate("2014-02-08", "yyyy-MM-dd") );
+		assertEquals( new LocalDate(2014, 12, 31).toDate(), BRules.toDate("2014-12-31", "yyyy-MM-dd") );
+		assertEquals( new LocalDate(2014, 2, 8).toDate(), BRules.toDate("02/08/2014", "MM/dd/yyyy") );
+		assertNull( BRules.toDate("2014-02-30", "yyyy-MM-dd") );
+		assertNull( BRules.toDate(null, "yyyy-MM-dd") );
+		
+		for( LocalDate d = new LocalDate(1999, 12, 1); d.getYear() < 2001; d = d.plusDays(1) ) {
+			assertEquals( d.toDate(), BRules.toDate(d.toString("yyyy-MM-dd"), "yyyy-MM-dd") );
+			assertEquals( d.toDate(), BRules.toDate(d.toString("dd.MM.yyyy"), "dd.MM.yyyy") );
+		}
+	}
+	
+	@Test
+	public void ageInYearsString() {
+		LocalDate today = new LocalDate();
+		LocalDate birth = today.minusYears(30);
+		assertEquals( 30, (int)BRules.ageInYears(birth.toString("yyyy-MM-dd"), "yyyy-MM-dd") );
+		assertEquals( 29, (int)BRules.ageInYears(birth.plusDays(1).toString("MM/dd/yyyy"), "MM/dd/yyyy") );
+		assertNull( BRules.ageInYears("not a date", "yyyy-MM-dd") );
+		assertNull( BRules.ageInYears((String)null, "yyyy-MM-dd") );
+	}
+	
+	@Test(expected=java.lang.IllegalArgumentException.class)
+	public void isDateBadPattern() {
+		BRules.isDate("2014-02-08", "yyyy-MM-dd qq");
+	}
+	
+	@Test(expected=java.lang.IllegalArgumentException.class)
+	public void ageInYearsBadZone() {
+		BRules.ageInYears(new Date(), new Date(), "Not/AZone");
+	}
+	
 	@Test
 	public void nullList() {
 		assertEquals( "", BRules.listToString(null) );
@@ -540,6 +735,1010 @@ public class BRulesTest {
 		list.add( "7-Up" );
 		assertEquals( "'Coke','Pepsi','7-Up'", BRules.listToString(list, ",", "'"));
 	}
+
+	@Test
+	public void ruleSet() throws Exception {
+		BRules.CompiledRuleSet rs = BRules.ruleSet("phone", "name", "fax", "xml")
+			.rule("isPhoneNum", "phone", "US")
+			.rule("notBlank", "name")
+			.rule("okChars", "name", "ASCII")
+			.rule("xor", "phone,fax")
+			.rule("isXML", "xml")
+			.compile();
+		
+		assertEquals( 5, rs.size() );
+		assertEquals( 31L, rs.getPassMask() );
+		assertTrue( rs.isValid("(301) 555-5555", "Carl", null, "<message />") );
+		
+		long bitmap = rs.evaluate("101", "\u1F00", "(301) 555-5555", "<message>");
+		assertEquals( 2L, bitmap );
+		assertEquals( "isPhoneNum(phone; US)", rs.failures(bitmap).get(0) );
+		assertEquals( 4, rs.failures(bitmap).size() );
+	}
+	
+	@Test
+	public void ruleSetCounts() {
+		BRules.CompiledRuleSet rs = BRules.ruleSet("a", "b", "c")
+			.rule("atLeast", "a,b,c", "2")
+			.rule("exactly", "a,b,c", "1")
+			.rule("none", "b,c")
+			.rule("all", "a,b")
+			.compile();
+		assertEquals( 6L, rs.evaluate("one", null, "") );
+		assertEquals( 9L, rs.evaluate("one", "two", "") );
+	}
+	
+	@Test(expected=java.lang.IllegalArgumentException.class)
+	public void ruleSetUnknownRoutine() {
+		BRules.ruleSet("a").rule("isFoo", "a").compile();
+	}
+
+	@Test(expected=java.lang.IllegalArgumentException.class)
+	public void ruleSetUnknownField() {
+		BRules.ruleSet("a").rule("isBlank", "b").compile();
+	}
+	
+	@Test(expected=java.lang.IllegalArgumentException.class)
+	public void ruleSetWrongRowSize() {
+		BRules.ruleSet("a", "b").rule("isBlank", "b").compile().evaluate("one");
+	}
+
+	@Test
+	public void loadRuleSet() throws Exception {
+		File f = File.createTempFile("brules", ".properties");
+		f.deleteOnExit();
+		writeFile(f, "fields=phone,name,fax\nrule.2=okChars name ASCII\nrule.1=isPhoneNum phone US\nrule.10=xor phone,fax\n");
+		
+		BRules.CompiledRuleSet rs = BRules.loadRuleSet(f.getPath());
+		assertEquals( 3, rs.size() );
+		assertEquals( "isPhoneNum(phone; US)", rs.describe(0) );
+		assertEquals( "xor(phone,fax)", rs.describe(2) );
+		assertTrue( rs.isValid("(301) 555-5555", "Carl", "") );
+	}
+	
+	@Test
+	public void reloadRuleSet() throws Exception {
+		File f = File.createTempFile("brules", ".properties");
+		f.deleteOnExit();
+		writeFile(f, "fields=name\nrule.1=notBlank name\n");
+		
+		BRules.RuleSetFile rsf = BRules.watchRuleSet(f.getPath(), 60000L);
+		try {
+			BRules.CompiledRuleSet before = rsf.get();
+			assertEquals( 1L, rsf.evaluate("\u1F00") );
+			
+			writeFile(f, "fields=name\nrule.1=notBlank name\nrule.2=okChars name ASCII\n");
+			assertTrue( rsf.reload() );
+			assertEquals( 1L, rsf.evaluate("\u1F00") );
+			assertEquals( 2, rsf.get().size() );
+			assertEquals( 1, before.size() );
+			
+			writeFile(f, "fields=name\nrule.1=isFoo name\n");
+			assertFalse( rsf.reload() );
+			assertTrue( rsf.getLastError() instanceof IllegalArgumentException );
+			assertEquals( 2, rsf.get().size() );
+		}
+		finally {
+			rsf.close();
+		}
+	}
+	
+	@Test
+	public void watchRuleSetPicksUpChanges() throws Exception {
+		File f = File.createTempFile("brules", ".properties");
+		f.deleteOnExit();
+		writeFile(f, "fields=name\nrule.1=notBlank name\n");
+		
+		BRules.RuleSetFile rsf = BRules.watchRuleSet(f.getPath(), 20L);
+		try {
+			assertEquals( 1, rsf.get().size() );
+			
+			writeFile(f, "fields=name\nrule.1=notBlank name\nrule.2=okChars name ASCII\n");
+			long deadline = System.currentTimeMillis() + 5000L;
+			while( rsf.get().size() != 2 && System.currentTimeMillis() < deadline ) {
+				Thread.sleep(10L);
+			}
+			assertEquals( 2, rsf.get().size() );
+			assertNull( rsf.getLastError() );
+			
+			writeFile(f, "fields=name\nrule.1=isFoo name\n");
+			deadline = System.currentTimeMillis() + 5000L;
+			while( rsf.getLastError() == null && System.currentTimeMillis() < deadline ) {
+				Thread.sleep(10L);
+			}
+			assertTrue( rsf.getLastError() instanceof IllegalArgumentException );
+			assertEquals( 2, rsf.get().size() );
+		}
+		finally {
+			rsf.close();
+		}
+	}
+	
+	private void writeFile(File _f, String _contents) throws Exception {
+		Writer w = new OutputStreamWriter(new FileOutputStream(_f), "UTF-8");
+		try {
+			w.write(_contents);
+		}
+		finally {
+			w.close();
+		}
+	}
+
+	@Test
+	public void metrics() throws Exception {
+		BRules.Metrics.setEnabled(true);
+		try {
+			BRules.Metrics.reset();
+			BRules.isPhoneNum("US", "(301) 555-5555");
+			BRules.isPhoneNum("US", "101");
+			BRules.okChars("hello", "ASCII");
+			try {
+				BRules.isXML("<message>hello</message>", "BADCHARSET");
+			}
+			catch(java.io.UnsupportedEncodingException expected) {}
+			
+			BRules.RoutineStats phone = BRules.Metrics.snapshot(BRules.Metrics.Routine.IS_PHONE_NUM);
+			assertEquals( 2L, phone.getCalls() );
+			assertEquals( 1L, phone.getTrueCount() );
+			assertEquals( 0.5, phone.getFailureRate(), 0.0 );
+			assertTrue( phone.getP99Nanos() >= phone.getP50Nanos() );
+			assertEquals( 1L, BRules.Metrics.snapshot(BRules.Metrics.Routine.IS_XML).getErrorCount() );
+			assertEquals( BRules.Metrics.Routine.values().length, BRules.Metrics.snapshot().size() );
+			assertTrue( ManagementFactory.getPlatformMBeanServer().isRegistered(new ObjectName(BRules.Metrics.OBJECT_NAME)) );
+			assertTrue( BRules.Metrics.isRegistered() );
+		}
+		finally {
+			BRules.Metrics.setEnabled(false);
+		}
+		
+		BRules.Metrics.reset();
+		BRules.isPhoneNum("US", "(301) 555-5555");
+		assertEquals( 0L, BRules.Metrics.snapshot(BRules.Metrics.Routine.IS_PHONE_NUM).getCalls() );
+	}
+
+	@Test
+	public void joinNested() {
+		Object nested = new Object() {
+			public String toString() {
+				return BRules.join("-", "a", "b");
+			}
+		};
+		assertEquals( "x;a-b;y", BRules.join(";", "x", nested, "y") );
+		assertEquals( "x;;1", BRules.join(";", "x", null, 1) );
+		assertEquals( "xnullnully", BRules.join(null, "x", "", "y") );
+	}
+	
+	@Test
+	public void listToStringLarge() {
+		List<String> list = new ArrayList<String>();
+		StringBuilder expected = new StringBuilder();
+		for( int i=0; i<100000; i++ ) {
+			list.add( "item" + i );
+			expected.append( (i>0)?",":"" ).append("'item").append(i).append("'");
+		}
+		assertEquals( expected.toString(), BRules.listToString(list, ",", "'") );
+		assertEquals( "'a'", BRules.listToString(java.util.Collections.singletonList("a"), ",", "'") );
+	}
+
+	@Test
+	public void joinAppendable() throws Exception {
+		StringWriter w = new StringWriter();
+		assertEquals( "one;;3", BRules.joinTo(w, ";", "one", null, 3).toString() );
+		assertEquals( "", BRules.joinTo(new StringBuilder(), ";", (Object[])null).toString() );
+		assertEquals( "a,b", BRules.commaTo(new StringBuilder(), "a", "b").toString() );
+		
+		StringBuilder sb = new StringBuilder("x");
+		assertEquals( "x,y", BRules.comma(sb, "y") );
+	}
+	
+	@Test
+	public void listToStringAppendable() throws Exception {
+		List<String> list = new ArrayList<String>();
+		list.add( "Coke" );
+		list.add( null );
+		list.add( "7-Up" );
+		assertEquals( "'Coke',,'7-Up'", BRules.listToStringTo(new StringWriter(), list, ",", "'").toString() );
+		assertEquals( "Coke||7-Up", BRules.listToStringTo(new StringBuilder(), list, "|").toString() );
+		assertEquals( "", BRules.listToStringTo(new StringBuilder(), null, "|").toString() );
+	}
+
+	@Test
+	public void csvField() {
+		String plain = "abc";
+		assertTrue( plain == BRules.csvField(plain) );
+		assertEquals( "", BRules.csvField(null) );
+		assertEquals( "\"a,b\"", BRules.csvField("a,b") );
+		assertEquals( "\"say \"\"hi\"\"\"", BRules.csvField("say \"hi\"") );
+		assertEquals( "\"two\nlines\"", BRules.csvField("two\nlines") );
+		assertEquals( "a,b", BRules.csvField("a,b", '|') );
+	}
+	
+	@Test
+	public void csv() throws Exception {
+		assertEquals( "one,\"t,wo\",,3", BRules.csv("one", "t,wo", null, 3) );
+		assertEquals( "", BRules.csv((Object[])null) );
+		assertEquals( "one|\"t|wo\"", BRules.csvJoin('|', "one", "t|wo") );
+		assertEquals( "a,\"\"\"\"", BRules.csvJoinTo(new StringWriter(), ',', "a", "\"").toString() );
+	}
+	
+	@Test
+	public void csvSplit() {
+		BRules.CSVFields f = BRules.csvSplit("one,\"t,wo\",\"say \"\"hi\"\"\",,\"\"");
+		assertEquals( 5, f.size() );
+		assertEquals( "one", f.get(0) );
+		assertEquals( "t,wo", f.get(1) );
+		assertEquals( "say \"hi\"", f.get(2) );
+		assertTrue( f.isEmpty(3) );
+		assertFalse( f.isQuoted(3) );
+		assertTrue( f.isQuoted(4) );
+		assertTrue( f.fieldEquals(1, "t,wo") );
+		assertEquals( 5, f.offset(1) );
+		assertEquals( 4, f.length(1) );
+		
+		assertEquals( 0, BRules.csvSplit(null).size() );
+		assertEquals( 1, BRules.csvSplit("").size() );
+		assertEquals( 2, BRules.csvSplit("a,").size() );
+		
+		f.split("x|y");
+		assertEquals( 1, f.size() );
+		assertEquals( "x|y", f.get(0) );
+		assertEquals( "y", BRules.csvSplit("x|y", '|').get(1) );
+		
+		List<Object> values = new ArrayList<Object>();
+		values.add( "a,\"b\"\r\nc" );
+		values.add( "" );
+		values.add( "d" );
+		assertEquals( "[a,\"b\"\r\nc, , d]", BRules.csvSplit(BRules.csv(values.toArray())).toString() );
+	}
+
+	@Test
+	public void escapeHTML() {
+		String plain = "hello";
+		assertTrue( plain == BRules.escapeHTML(plain) );
+		assertNull( BRules.escapeHTML(null) );
+		assertEquals( "a&lt;b &amp; &quot;c&quot; &#39;d&#39;&gt;", BRules.escapeHTML("a<b & \"c\" 'd'>") );
+	}
+	
+	@Test
+	public void htmlEscaped() {
+		assertEquals( "<ul><li>a&lt;b</li><li></li></ul>", BRules.ulEscaped("", "a<b", null) );
+		assertEquals( "<ol class=\"x&quot;y\"><li>&amp;</li></ol>", BRules.olEscaped("x\"y", "&") );
+		assertEquals( "<p class=\"note\">a&lt;b</p>", BRules.pEscaped("note", "a<b") );
+		assertEquals( "<p>a<b</p>", BRules.p("", "a<b") );
+	}
+	
+	@Test
+	public void htmlAppendable() throws Exception {
+		StringWriter w = new StringWriter();
+		BRules.ulTo(w, "c", "<i>one</i>");
+		BRules.olEscapedTo(w, "", "<i>two</i>");
+		BRules.pTo(w, null, "three");
+		BRules.pEscapedTo(w, null, "<four>");
+		BRules.ulEscapedTo(w, "", (Object[])null);
+		BRules.olTo(w, "", "five");
+		assertEquals( "<ul class=\"c\"><li><i>one</i></li></ul><ol><li>&lt;i&gt;two&lt;/i&gt;</li></ol><p>three</p><p>&lt;four&gt;</p><ul></ul><ol><li>five</li></ol>", w.toString() );
+		
+		assertEquals( "<ul><li>a</li></ul>", BRules.ul(null, "a") );
+		assertEquals( "<ol><li>a</li></ol>", BRules.ol(null, "a") );
+	}
+
+	@Test
+	public void table() throws Exception {
+		Object[][] rows = { { "a", 1 }, null, { null, "<b>" } };
+		assertEquals( "<table class=\"report\"><thead><tr><th>name</th><th>qty</th></tr></thead>" +
+				"<tbody><tr><td>a</td><td>1</td></tr><tr></tr><tr><td></td><td><b></td></tr></tbody></table>", 
+				BRules.table("report", new Object[] { "name", "qty" }, rows) );
+		assertEquals( "<table><tbody><tr><td>a</td><td>1</td></tr><tr></tr><tr><td></td><td>&lt;b&gt;</td></tr></tbody></table>", 
+				BRules.tableEscaped("", null, rows) );
+		assertEquals( "<table><tbody></tbody></table>", BRules.table(null, (Object[])null, (Object[][])null) );
+	}
+	
+	@Test
+	public void tableList() throws Exception {
+		List<List<?>> rows = new ArrayList<List<?>>();
+		List<Object> row = new ArrayList<Object>();
+		row.add( "x&y" );
+		row.add( 2L );
+		rows.add( row );
+		List<String> headers = new ArrayList<String>();
+		headers.add( "h" );
+		assertEquals( "<table><thead><tr><th>h</th></tr></thead><tbody><tr><td>x&y</td><td>2</td></tr></tbody></table>", 
+				BRules.table("", headers, rows) );
+		assertEquals( "<table><thead><tr><th>h</th></tr></thead><tbody><tr><td>x&amp;y</td><td>2</td></tr></tbody></table>", 
+				BRules.tableEscapedTo(new StringWriter(), "", headers, rows).toString() );
+		assertEquals( "<table><tbody><tr><td>x&y</td><td>2</td></tr></tbody></table>", 
+				BRules.tableTo(new StringBuilder(), null, null, rows).toString() );
+	}
+
+	@Test
+	public void recordLayout() throws Exception {
+		BRules.RecordLayout layout = BRules.recordLayout()
+			.field("id", 8, BRules.Align.RIGHT, '0')
+			.field("name", 6)
+			.field("amount", 7, BRules.Align.RIGHT, ' ');
+		
+		assertEquals( 21, layout.getLength() );
+		assertEquals( 14, layout.getOffset(2) );
+		assertEquals( "00000042Carl     9.99", layout.format(42, "Carl", "9.99") );
+		assertEquals( "-0000042      -123456", layout.format(-42L, null, -123456) );
+		assertEquals( "00012345Carl     9.99", layout.format("12345", "Carl", 9.99) );
+		
+		StringWriter w = new StringWriter();
+		layout.format(w, 1, "ab", "c");
+		assertEquals( "00000001ab          c", w.toString() );
+		
+		String[] fields = layout.parse("00000042Carl     9.99");
+		assertEquals( "42", fields[0] );
+		assertEquals( "Carl", fields[1] );
+		assertEquals( "9.99", fields[2] );
+		assertEquals( "Car", layout.parseField("00000042Car", 1) );
+		assertEquals( "", layout.parseField("00000042Car", 2) );
+	}
+	
+	@Test
+	public void recordLayoutRoundTripsNumbers() {
+		BRules.RecordLayout layout = BRules.recordLayout()
+			.field("n", 8, BRules.Align.RIGHT, '0')
+			.field("name", 4);
+		
+		assertEquals( "00000000", layout.format(0, "").substring(0, 8) );
+		assertEquals( "0", layout.parseField(layout.format(0, ""), 0) );
+		assertEquals( "", layout.parseField(layout.format(0, ""), 1) );
+		assertEquals( "-0000005", layout.format(-5, "").substring(0, 8) );
+		assertEquals( "-5", layout.parseField(layout.format(-5, ""), 0) );
+		assertEquals( "-5", layout.parseField(layout.format(-5L, ""), 0) );
+		assertEquals( "-1.5", layout.parseField(layout.format(new java.math.BigDecimal("-1.5"), ""), 0) );
+		assertEquals( "-10", layout.parseField(layout.format(-10, ""), 0) );
+		assertEquals( "-9999999", layout.parseField(layout.format(-9999999, ""), 0) );
+		assertEquals( "12", layout.parseField(layout.format(12, ""), 0) );
+		assertEquals( "0.5", layout.parseField(layout.format(0.5, ""), 0) );
+		assertEquals( "-0.5", layout.parseField(layout.format(-0.5, ""), 0) );
+		
+		BRules.RecordLayout spaces = BRules.recordLayout().field("n", 4, BRules.Align.RIGHT, ' ');
+		assertEquals( "", spaces.parseField(spaces.format(""), 0) );
+		assertEquals( "-5", spaces.parseField(spaces.format(-5), 0) );
+	}
+	
+	@Test
+	public void recordLayoutOverflow() {
+		BRules.RecordLayout layout = BRules.recordLayout()
+			.field("code", 3, BRules.Align.RIGHT, '0')
+			.field("name", 4);
+		try {
+			layout.format("1234", "ab");
+			fail("expected IllegalArgumentException");
+		}
+		catch(IllegalArgumentException expected) {}
+		
+		layout.truncate(true);
+		assertEquals( "234abcd", layout.format(1234, "abcdef") );
+	}
+
+	@Test
+	public void blankPredicatesAgree() {
+		assertFalse( BRules.all("one", "  ") );
+		assertFalse( BRules.all("\t") );
+		assertTrue( BRules.xor("  ", "two") );
+		assertFalse( BRules.xor(" one", "two ") );
+		assertTrue( BRules.none(" ", null, "\n") );
+		assertEquals( 2L, BRules.setMask(" ", "two", "\t") );
+		assertTrue( BRules.exactly(1, "\t", "two") );
+		assertFalse( BRules.atLeast(2, "one", "  ") );
+	}
+
+	@Test
+	public void isEmail() {
+		assertTrue( BRules.isEmail("jdoe@example.com") );
+		assertTrue( BRules.isEmail("first.last+tag@mail.example.co.uk") );
+		assertTrue( BRules.isEmail("o'brien@example.ie") );
+		assertTrue( BRules.isEmail("x@xn--80ak6aa92e.com") );
+		assertTrue( BRules.isEmail("user@a-b.c9") );
+	}
+	
+	@Test
+	public void isNotEmail() {
+		assertFalse( BRules.isEmail(null) );
+		assertFalse( BRules.isEmail("") );
+		assertFalse( BRules.isEmail("plainaddress") );
+		assertFalse( BRules.isEmail("@example.com") );
+		assertFalse( BRules.isEmail("jdoe@") );
+		assertFalse( BRules.isEmail("jdoe@localhost") );
+		assertFalse( BRules.isEmail(".jdoe@example.com") );
+		assertFalse( BRules.isEmail("jdoe.@example.com") );
+		assertFalse( BRules.isEmail("j..doe@example.com") );
+		assertFalse( BRules.isEmail("jdoe@@example.com") );
+		assertFalse( BRules.isEmail("j@doe@example.com") );
+		assertFalse( BRules.isEmail("j doe@example.com") );
+		assertFalse( BRules.isEmail("jdoe@example..com") );
+		assertFalse( BRules.isEmail("jdoe@.example.com") );
+		assertFalse( BRules.isEmail("jdoe@example.com.") );
+		assertFalse( BRules.isEmail("jdoe@-example.com") );
+		assertFalse( BRules.isEmail("jdoe@example-.com") );
+		assertFalse( BRules.isEmail("jdoe@ex_ample.com") );
+		assertFalse( BRules.isEmail("jdoe@192.168.0.1") );
+		assertFalse( BRules.isEmail("jöhn@example.com") );
+		assertFalse( BRules.isEmail(StringUtils.repeat("a", 65) + "@example.com") );
+		assertFalse( BRules.isEmail("jdoe@" + StringUtils.repeat("a", 64) + ".com") );
+		assertFalse( BRules.isEmail("jdoe@" + StringUtils.repeat("abcdefghi.", 25) + "com") );
+	}
+	
+	@Test
+	public void isEmailLoose() {
+		assertTrue( BRules.isEmail("jöhn@example.com", true) );
+		assertTrue( BRules.isEmail("jdoe@ex_ample.com", true) );
+		assertTrue( BRules.isEmail("j..doe@192.168.0.1", true) );
+		assertFalse( BRules.isEmail("j doe@example.com", true) );
+		assertFalse( BRules.isEmail("jdoe@localhost", true) );
+		assertFalse( BRules.isEmail("jdoe@example.", true) );
+		assertFalse( BRules.isEmail("jdoe@.com", true) );
+		assertFalse( BRules.isEmail("j@doe@example.com", true) );
+		assertFalse( BRules.isEmail("jdoe@exa\tmple.com", true) );
+	}
+	
+	@Test
+	public void ruleSetIsEmail() {
+		BRules.CompiledRuleSet rs = BRules.ruleSet("email")
+			.rule("isEmail", "email")
+			.compile();
+		assertEquals( 1L, rs.evaluate("jdoe@example.com") );
+		assertEquals( 0L, rs.evaluate("jdoe@ex_ample.com") );
+		BRules.CompiledRuleSet loose = BRules.ruleSet("email")
+			.rule("isEmail", "email", "true")
+			.compile();
+		assertEquals( 1L, loose.evaluate("jdoe@ex_ample.com") );
+	}
+
+	@Test
+	public void matches() {
+		assertTrue( BRules.matches("12345", "\\d{5}") );
+		assertFalse( BRules.matches("12345-6789", "\\d{5}") );
+		assertFalse( BRules.matches(null, "\\d{5}") );
+		assertTrue( BRules.matches("", "\\d*") );
+		for( int i=0; i<20; i++ ) {
+			assertTrue( BRules.matches("a" + i, "[a-z]\\d+") );
+			assertFalse( BRules.matches("ab" + i, "[a-z]\\d+") );
+			assertTrue( BRules.matches("x", "x|y") );
+		}
+	}
+	
+	@Test
+	public void find() {
+		assertTrue( BRules.find("12345-6789", "\\d{5}") );
+		assertTrue( BRules.find("zip 12345", "\\d{5}") );
+		assertFalse( BRules.find("abc", "\\d") );
+		assertFalse( BRules.find(null, "\\d") );
+		assertTrue( BRules.find("abc", "") );
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void matchesNullRegex() {
+		BRules.matches("abc", null);
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void matchesBadRegex() {
+		BRules.matches("abc", "[a-");
+	}
+	
+	@Test
+	public void ruleSetMatches() {
+		BRules.CompiledRuleSet rs = BRules.ruleSet("zip", "note")
+			.rule("matches", "zip", "\\d{5}(-\\d{4})?")
+			.rule("find", "note", "(?i)urgent")
+			.compile();
+		assertEquals( 3L, rs.evaluate("12345-6789", "Urgent: call back") );
+		assertEquals( 0L, rs.evaluate("1234", null) );
+	}
+
+	@Test
+	public void isPostalCode() {
+		assertTrue( BRules.isPostalCode("US", "20500") );
+		assertTrue( BRules.isPostalCode("US", "20500-0003") );
+		assertTrue( BRules.isPostalCode("us", "20500") );
+		assertTrue( BRules.isPostalCode("CA", "K1A 0B1") );
+		assertTrue( BRules.isPostalCode("CA", "k1a0b1") );
+		assertTrue( BRules.isPostalCode("GB", "SW1A 1AA") );
+		assertTrue( BRules.isPostalCode("GB", "M1 1AE") );
+		assertTrue( BRules.isPostalCode("NL", "1012 AB") );
+		assertTrue( BRules.isPostalCode("JP", "100-0001") );
+		assertTrue( BRules.isPostalCode("IE", "D02 X285") );
+	}
+	
+	@Test
+	public void isNotPostalCode() {
+		assertFalse( BRules.isPostalCode("US", null) );
+		assertFalse( BRules.isPostalCode(null, "20500") );
+		assertFalse( BRules.isPostalCode("US", "") );
+		assertFalse( BRules.isPostalCode("US", "2050") );
+		assertFalse( BRules.isPostalCode("US", "20500-003") );
+		assertFalse( BRules.isPostalCode("US", "2050A") );
+		assertFalse( BRules.isPostalCode("US", "20500 ") );
+		assertFalse( BRules.isPostalCode("CA", "K1A  0B1") );
+		assertFalse( BRules.isPostalCode("GB", "SW1A 1A1") );
+		assertFalse( BRules.isPostalCode("DE", "1011") );
+		assertFalse( BRules.isPostalCode("XX", "12345") );
+	}
+	
+	@Test
+	public void isIBAN() {
+		assertTrue( BRules.isIBAN("GB82 WEST 1234 5698 7654 32") );
+		assertTrue( BRules.isIBAN("GB82WEST12345698765432") );
+		assertTrue( BRules.isIBAN("DE89370400440532013000") );
+		assertTrue( BRules.isIBAN("fr1420041010050500013m02606") );
+		assertTrue( BRules.isIBAN("NO9386011117947") );
+		assertFalse( BRules.isIBAN("GB82 WEST 1234 5698 7654 33") );
+		assertFalse( BRules.isIBAN("GB82WEST1234569876543") );
+		assertFalse( BRules.isIBAN("DE89-3704-0044-0532-0130-00") );
+		assertFalse( BRules.isIBAN("XX82WEST12345698765432") );
+		assertFalse( BRules.isIBAN("8282WEST12345698765432") );
+		assertFalse( BRules.isIBAN("GB") );
+		assertFalse( BRules.isIBAN("") );
+		assertFalse( BRules.isIBAN(null) );
+	}
+	
+	@Test
+	public void isCreditCard() {
+		assertTrue( BRules.isCreditCard("4111111111111111") );
+		assertTrue( BRules.isCreditCard("4111 1111 1111 1111") );
+		assertTrue( BRules.isCreditCard("5500-0000-0000-0004") );
+		assertTrue( BRules.isCreditCard("378282246310005") );
+		assertFalse( BRules.isCreditCard("4111 1111 1111 1112") );
+		assertFalse( BRules.isCreditCard("4111  1111 1111 1111") );
+		assertFalse( BRules.isCreditCard(" 4111111111111111") );
+		assertFalse( BRules.isCreditCard("4111111111111111-") );
+		assertFalse( BRules.isCreditCard("0000000000") );
+		assertFalse( BRules.isCreditCard("") );
+		assertFalse( BRules.isCreditCard(null) );
+	}
+	
+	@Test
+	public void isSSN() {
+		assertTrue( BRules.isSSN("123-45-6789") );
+		assertTrue( BRules.isSSN("123456789") );
+		assertFalse( BRules.isSSN("000-45-6789") );
+		assertFalse( BRules.isSSN("666-45-6789") );
+		assertFalse( BRules.isSSN("900-45-6789") );
+		assertFalse( BRules.isSSN("123-00-6789") );
+		assertFalse( BRules.isSSN("123-45-0000") );
+		assertFalse( BRules.isSSN("123-456789") );
+		assertFalse( BRules.isSSN("12345678") );
+		assertFalse( BRules.isSSN("123-45-678a") );
+		assertFalse( BRules.isSSN(null) );
+	}
+	
+	@Test
+	public void ruleSetIdentifiers() {
+		BRules.CompiledRuleSet rs = BRules.ruleSet("zip", "iban", "card", "ssn")
+			.rule("isPostalCode", "zip", "US")
+			.rule("isIBAN", "iban")
+			.rule("isCreditCard", "card")
+			.rule("isSSN", "ssn")
+			.compile();
+		assertEquals( 15L, rs.evaluate("20500", "DE89370400440532013000", "4111111111111111", "123-45-6789") );
+		assertEquals( 0L, rs.evaluate("2050", "DE89370400440532013001", "4111111111111112", "666-45-6789") );
+	}
+
+	@Test
+	public void dedupBloom() {
+		BRules.Dedup dedup = BRules.dedup(10000, 0.01);
+		int falsePositives = 0;
+		for( int i=0; i<10000; i++ ) {
+			if( dedup.isDuplicate("key" + i, i, null) ) falsePositives++;
+		}
+		assertTrue( falsePositives < 300 );
+		for( int i=0; i<10000; i++ ) {
+			assertTrue( dedup.isDuplicate("key" + i, i, null) );
+		}
+		assertEquals( 10000L - falsePositives, dedup.count() );
+	}
+	
+	@Test
+	public void dedupExact() {
+		BRules.Dedup dedup = BRules.dedupExact(10);
+		for( int i=0; i<10000; i++ ) {
+			assertFalse( dedup.isDuplicate("key" + i, i, null) );
+		}
+		for( int i=0; i<10000; i++ ) {
+			assertTrue( dedup.isDuplicate("key" + i, i, null) );
+		}
+		assertEquals( 10000L, dedup.count() );
+	}
+	
+	@Test
+	public void dedupKeys() {
+		BRules.Dedup dedup = BRules.dedupExact(100);
+		assertFalse( dedup.isDuplicate("ab", "c") );
+		assertFalse( dedup.isDuplicate("a", "bc") );
+		assertFalse( dedup.isDuplicate(null, "x") );
+		assertFalse( dedup.isDuplicate("", "x") );
+		assertFalse( dedup.isDuplicate("x") );
+		assertFalse( dedup.isDuplicate("x", null) );
+		assertFalse( dedup.isDuplicate(new Long(1L)) );
+		assertTrue( dedup.isDuplicate(new Integer(1)) );
+		assertFalse( dedup.isDuplicate("1") );
+		assertFalse( dedup.isDuplicate(new Date(0L)) );
+		assertTrue( dedup.isDuplicate(new Date(0L)) );
+		assertTrue( dedup.isDuplicate(new StringBuilder("ab"), "c") );
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void dedupBadRate() {
+		BRules.dedup(100, 1.0);
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void dedupBadRows() {
+		BRules.dedupExact(0);
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void dedupTooManyRows() {
+		BRules.dedupExact(Long.MAX_VALUE / 2);
+	}
+
+	@Test
+	public void inList() throws Exception {
+		File f = File.createTempFile("brules", ".txt");
+		f.deleteOnExit();
+		writeFile(f, "US\nCA\n\n  MX \nUS\nCôte d'Ivoire\n");
+		
+		BRules.LookupTable table = BRules.loadList("country", f.getPath());
+		assertEquals( 4, table.size() );
+		assertTrue( BRules.inList("country", "US") );
+		assertTrue( BRules.inList("country", "MX") );
+		assertTrue( BRules.inList("country", "Côte d'Ivoire") );
+		assertFalse( BRules.inList("country", "us") );
+		assertFalse( BRules.inList("country", "") );
+		assertFalse( BRules.inList("country", null) );
+		
+		BRules.CompiledRuleSet rs = BRules.ruleSet("country").rule("inList", "country", "country").compile();
+		assertEquals( 1L, rs.evaluate("CA") );
+		assertEquals( 0L, rs.evaluate("GB") );
+		
+		writeFile(f, "GB\n");
+		BRules.loadList("country", f.getPath());
+		assertEquals( 1L, rs.evaluate("GB") );
+	}
+	
+	@Test
+	public void inListLarge() {
+		List<String> values = new ArrayList<String>();
+		for( int i=0; i<50000; i++ ) {
+			values.add("P" + i);
+		}
+		BRules.LookupTable table = new BRules.LookupTable(values);
+		assertEquals( 50000, table.size() );
+		for( int i=0; i<50000; i++ ) {
+			assertTrue( table.contains("P" + i) );
+			assertFalse( table.contains("Q" + i) );
+		}
+	}
+	
+	@Test
+	public void inListByteOrderMark() throws Exception {
+		File f = File.createTempFile("brules", ".txt");
+		f.deleteOnExit();
+		writeFile(f, "\uFEFFUS\nCA\n");
+		
+		BRules.loadList("bom", f.getPath());
+		assertTrue( BRules.inList("bom", "US") );
+		assertTrue( BRules.inList("bom", "CA") );
+	}
 	
+	@Test
+	public void inListTooManyValues() {
+		List<String> values = new java.util.AbstractList<String>() {
+			public String get(int _i) {
+				return "P" + _i;
+			}
+			public int size() {
+				return (1 << 26) + 1;
+			}
+		};
+		try {
+			new BRules.LookupTable(values);
+			fail("expected IllegalArgumentException");
+		}
+		catch(IllegalArgumentException expected) {
+			assertTrue( expected.getMessage().contains("67108864") );
+		}
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void inListUnknownTable() {
+		BRules.inList("no such table", "US");
+	}
 
+	@Test
+	public void levenshtein() {
+		assertEquals( 3, BRules.levenshtein("kitten", "sitting") );
+		assertEquals( 3, BRules.levenshtein("sitting", "kitten") );
+		assertEquals( 0, BRules.levenshtein("", "") );
+		assertEquals( 4, BRules.levenshtein(null, "abcd") );
+		assertEquals( 2, BRules.levenshtein("flaw", "lawn") );
+		assertEquals( 3, BRules.levenshtein("kitten", "sitting", 3) );
+		assertEquals( -1, BRules.levenshtein("kitten", "sitting", 2) );
+		assertEquals( -1, BRules.levenshtein("a", "abcd", 2) );
+		assertEquals( 0, BRules.levenshtein("same", "same", 0) );
+		assertEquals( -1, BRules.levenshtein("same", "sane", 0) );
+	}
+	
+	@Test
+	public void levenshteinBandMatchesFull() {
+		Random r = new Random(11);
+		for( int trial=0; trial<500; trial++ ) {
+			String a = randomWord(r, r.nextInt(12));
+			String b = randomWord(r, r.nextInt(12));
+			int full = BRules.levenshtein(a, b);
+			for( int k=0; k<8; k++ ) {
+				assertEquals( a + "/" + b + "/" + k, (full <= k) ? full : -1, BRules.levenshtein(a, b, k) );
+			}
+		}
+		String longer = StringUtils.repeat("abcdefghij", 200);
+		assertEquals( 1, BRules.levenshtein(longer, longer.substring(1), 5) );
+	}
+	
+	private String randomWord(Random _r, int _length) {
+		char[] c = new char[_length];
+		for( int i=0; i<_length; i++ ) c[i] = (char)('a' + _r.nextInt(3));
+		return new String(c);
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void levenshteinNegativeMax() {
+		BRules.levenshtein("a", "b", -1);
+	}
+	
+	@Test
+	public void jaroWinkler() {
+		assertEquals( 0.961, BRules.jaroWinkler("MARTHA", "MARHTA"), 0.001 );
+		assertEquals( 0.840, BRules.jaroWinkler("DWAYNE", "DUANE"), 0.001 );
+		assertEquals( 0.813, BRules.jaroWinkler("DIXON", "DICKSONX"), 0.001 );
+		assertEquals( 1.0, BRules.jaroWinkler("same", "same"), 0.0 );
+		assertEquals( 1.0, BRules.jaroWinkler(null, ""), 0.0 );
+		assertEquals( 0.0, BRules.jaroWinkler("abc", ""), 0.0 );
+		assertEquals( 0.0, BRules.jaroWinkler("abc", "xyz"), 0.0 );
+	}
+	
+	@Test
+	public void soundex() {
+		assertEquals( "R163", BRules.soundex("Robert") );
+		assertEquals( "R163", BRules.soundex("Rupert") );
+		assertEquals( "A261", BRules.soundex("Ashcraft") );
+		assertEquals( "T522", BRules.soundex("Tymczak") );
+		assertEquals( "P236", BRules.soundex("Pfister") );
+		assertEquals( "H555", BRules.soundex("Honeyman") );
+		assertEquals( "L000", BRules.soundex("Lee") );
+		assertEquals( "O165", BRules.soundex(" o'brien") );
+		assertEquals( "", BRules.soundex("123") );
+		assertNull( BRules.soundex(null) );
+	}
+
+	@Test
+	public void fingerprint() {
+		assertEquals( 2288750952994383438L, BRules.fingerprint(42, "Carl") );
+		assertEquals( BRules.fingerprint(42L, "Carl"), BRules.fingerprint(42, new StringBuilder("Carl")) );
+		assertFalse( BRules.fingerprint((Object)null) == BRules.fingerprint("") );
+		assertFalse( BRules.fingerprint("ab", "c") == BRules.fingerprint("a", "bc") );
+		assertFalse( BRules.fingerprint("x", null) == BRules.fingerprint("x") );
+		assertFalse( BRules.fingerprint("1") == BRules.fingerprint(1) );
+		assertFalse( BRules.fingerprint(1.0) == BRules.fingerprint(1) );
+		assertFalse( BRules.fingerprint(Boolean.TRUE) == BRules.fingerprint(Boolean.FALSE) );
+	}
+	
+	@Test
+	public void fingerprintNumbersAndArrays() {
+		java.math.BigDecimal one = new java.math.BigDecimal("1");
+		assertFalse( BRules.fingerprint(one) == BRules.fingerprint("1") );
+		assertEquals( BRules.fingerprint(1L), BRules.fingerprint(one) );
+		assertEquals( BRules.fingerprint(1L), BRules.fingerprint(new java.math.BigDecimal("1.00")) );
+		assertEquals( BRules.fingerprint(1L), BRules.fingerprint(java.math.BigInteger.ONE) );
+		assertEquals( BRules.fingerprint(0), BRules.fingerprint(new java.math.BigDecimal("0.000")) );
+		assertEquals( BRules.fingerprint(new java.math.BigDecimal("1.5")), BRules.fingerprint(new java.math.BigDecimal("1.50")) );
+		assertFalse( BRules.fingerprint(new java.math.BigDecimal("1.5")) == BRules.fingerprint("1.5") );
+		assertFalse( BRules.fingerprint(new java.math.BigDecimal("1.5")) == BRules.fingerprint(new java.math.BigDecimal("15")) );
+		java.math.BigInteger big = java.math.BigInteger.ONE.shiftLeft(70);
+		assertEquals( BRules.fingerprint(big), BRules.fingerprint(java.math.BigInteger.ONE.shiftLeft(70)) );
+		assertFalse( BRules.fingerprint(big) == BRules.fingerprint(big.toString()) );
+		
+		assertEquals( BRules.fingerprint(new char[] { 'a', 'b' }), BRules.fingerprint(new char[] { 'a', 'b' }) );
+		assertFalse( BRules.fingerprint(new char[] { 'a', 'b' }) == BRules.fingerprint("ab") );
+		assertEquals( BRules.fingerprint((Object)new Object[] { "a", 1 }), BRules.fingerprint((Object)new Object[] { "a", 1 }) );
+		assertFalse( BRules.fingerprint((Object)new Object[] { "a", 1 }) == BRules.fingerprint("a", 1) );
+		assertEquals( BRules.fingerprint(new int[] { 1, 2 }), BRules.fingerprint(new long[] { 1L, 2L }) );
+		assertFalse( BRules.fingerprint(new int[] { 1, 2 }) == BRules.fingerprint(new int[] { 2, 1 }) );
+		assertEquals( BRules.fingerprintSHA256(new char[] { 'x' }), BRules.fingerprintSHA256(new char[] { 'x' }) );
+	}
+	
+	@Test
+	public void fingerprint128() {
+		String fp = BRules.fingerprint128(42, "Carl");
+		assertEquals( "1fc346dd8c91264e15c8bce0468c7a4f", fp );
+		assertEquals( Long.toHexString(BRules.fingerprint(42, "Carl")), fp.substring(0, 16) );
+		assertFalse( BRules.fingerprint128((Object)null).equals(BRules.fingerprint128("")) );
+	}
+	
+	@Test
+	public void fingerprintSHA256() {
+		String fp = BRules.fingerprintSHA256(42, "Carl");
+		assertEquals( "c4ed296e3969105281cc8631879fbe8a63ae91cf6320f60a7f7433c7362ba1ca", fp );
+		assertEquals( fp, BRules.fingerprintSHA256(42, "Carl") );
+		assertFalse( BRules.fingerprintSHA256((Object)null).equals(BRules.fingerprintSHA256("")) );
+		assertFalse( BRules.fingerprintSHA256("ab", "c").equals(BRules.fingerprintSHA256("a", "bc")) );
+		String longText = StringUtils.repeat("0123456789", 1000);
+		assertFalse( BRules.fingerprintSHA256(longText).equals(BRules.fingerprintSHA256(longText + "!")) );
+	}
+
+	@Test
+	public void memo() {
+		BRules.Memo.setMaxEntries(BRules.Memo.Routine.TRIM_LEADING_ZEROS, 2);
+		try {
+			assertEquals( "101", BRules.trimLeadingZeros("00101") );
+			assertEquals( "101", BRules.trimLeadingZeros("00101") );
+			assertEquals( "7", BRules.trimLeadingZeros("007") );
+			assertEquals( "-5", BRules.trimLeadingZeros("-05") );
+			assertEquals( "101", BRules.trimLeadingZeros("00101") );
+			
+			BRules.MemoStats stats = BRules.Memo.snapshot(BRules.Memo.Routine.TRIM_LEADING_ZEROS);
+			assertEquals( 1L, stats.getHits() );
+			assertEquals( 4L, stats.getMisses() );
+			assertEquals( 2L, stats.getEvictions() );
+			assertEquals( 2, stats.getSize() );
+			assertEquals( 0.2, stats.getHitRate(), 0.0001 );
+		}
+		finally {
+			BRules.Memo.setMaxEntries(BRules.Memo.Routine.TRIM_LEADING_ZEROS, 0);
+		}
+		assertEquals( 0, BRules.Memo.snapshot(BRules.Memo.Routine.TRIM_LEADING_ZEROS).getMaxEntries() );
+	}
+	
+	@Test
+	public void memoBooleanRoutines() {
+		BRules.Memo.setMaxEntries(BRules.Memo.Routine.IS_PHONE_NUM, 100);
+		BRules.Memo.setMaxEntries(BRules.Memo.Routine.OK_CHARS, 100);
+		try {
+			for( int i=0; i<3; i++ ) {
+				assertTrue( BRules.isPhoneNum("US", "(301) 555-5555") );
+				assertFalse( BRules.isPhoneNum("US", "101") );
+				assertTrue( BRules.isPhoneNum("US", "(301) 555-5555", true) );
+				assertTrue( BRules.okChars("hello", "ASCII") );
+				assertFalse( BRules.okChars("€100", "ASCII") );
+				assertTrue( BRules.okChars("€100", "UTF-8") );
+			}
+			BRules.MemoStats phone = BRules.Memo.snapshot(BRules.Memo.Routine.IS_PHONE_NUM);
+			assertEquals( 3L, phone.getMisses() );
+			assertEquals( 6L, phone.getHits() );
+			assertEquals( 3, phone.getSize() );
+			assertEquals( 6L, BRules.Memo.snapshot(BRules.Memo.Routine.OK_CHARS).getHits() );
+			assertEquals( BRules.Memo.Routine.values().length, BRules.Memo.snapshot().size() );
+		}
+		finally {
+			BRules.Memo.setMaxEntries(BRules.Memo.Routine.IS_PHONE_NUM, 0);
+			BRules.Memo.setMaxEntries(BRules.Memo.Routine.OK_CHARS, 0);
+		}
+	}
+
+	@Test
+	public void async() throws Exception {
+		Future<Boolean> phone = BRules.Async.isPhoneNum("US", "(301) 555-5555", false);
+		Future<Boolean> xml = BRules.Async.isXML("<message>hello</message>");
+		Future<Boolean> badXml = BRules.Async.isXML("<message>hello", "UTF-8");
+		assertTrue( BRules.Async.await(phone, 10, TimeUnit.SECONDS) );
+		assertTrue( BRules.Async.await(xml, 10, TimeUnit.SECONDS) );
+		assertFalse( BRules.Async.await(badXml, 10, TimeUnit.SECONDS) );
+	}
+	
+	@Test
+	public void asyncTimeoutCancels() throws Exception {
+		Future<Boolean> slow = BRules.Async.submit(new Callable<Boolean>() {
+			public Boolean call() throws Exception {
+				Thread.sleep(60000L);
+				return true;
+			}
+		});
+		try {
+			BRules.Async.await(slow, 50, TimeUnit.MILLISECONDS);
+			fail("expected a timeout");
+		}
+		catch(TimeoutException expected) {}
+		assertTrue( slow.isCancelled() );
+	}
+	
+	@Test
+	public void asyncError() throws Exception {
+		Future<Boolean> failing = BRules.Async.submit(new Callable<Boolean>() {
+			public Boolean call() {
+				throw new IllegalArgumentException("bad input");
+			}
+		});
+		try {
+			BRules.Async.await(failing, 10, TimeUnit.SECONDS);
+			fail("expected an execution exception");
+		}
+		catch(ExecutionException exc) {
+			assertTrue( exc.getCause() instanceof IllegalArgumentException );
+		}
+	}
+	
+	@Test
+	public void asyncExecutor() throws Exception {
+		ExecutorService custom = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				return new Thread(r, "custom-validator");
+			}
+		});
+		Callable<String> threadName = new Callable<String>() {
+			public String call() {
+				return Thread.currentThread().getName();
+			}
+		};
+		BRules.Async.setExecutor(custom);
+		try {
+			assertEquals( "custom-validator", BRules.Async.await(BRules.Async.submit(threadName), 10, TimeUnit.SECONDS) );
+		}
+		finally {
+			BRules.Async.setExecutor(null);
+			custom.shutdown();
+		}
+		assertFalse( "custom-validator".equals(BRules.Async.await(BRules.Async.submit(threadName), 10, TimeUnit.SECONDS)) );
+	}
+
+	@Test
+	public void memoWithMetrics() {
+		BRules.Metrics.setEnabled(true);
+		BRules.Metrics.reset();
+		BRules.Memo.setMaxEntries(BRules.Memo.Routine.OK_CHARS, 100);
+		BRules.Memo.setMaxEntries(BRules.Memo.Routine.IS_PHONE_NUM, 100);
+		try {
+			for( int i=0; i<5; i++ ) {
+				assertFalse( BRules.okChars("abc\u00e9", "US-ASCII") );
+				assertTrue( BRules.okChars("abc", "US-ASCII") );
+				assertFalse( BRules.isPhoneNum("US", "101") );
+			}
+			BRules.RoutineStats ok = BRules.Metrics.snapshot(BRules.Metrics.Routine.OK_CHARS);
+			assertEquals( 10L, ok.getCalls() );
+			assertEquals( 5L, ok.getTrueCount() );
+			assertEquals( 5L, ok.getFalseCount() );
+			BRules.RoutineStats phone = BRules.Metrics.snapshot(BRules.Metrics.Routine.IS_PHONE_NUM);
+			assertEquals( 0L, phone.getTrueCount() );
+			assertEquals( 5L, phone.getFalseCount() );
+			assertEquals( 8L, BRules.Memo.snapshot(BRules.Memo.Routine.OK_CHARS).getHits() );
+		}
+		finally {
+			BRules.Memo.setMaxEntries(BRules.Memo.Routine.OK_CHARS, 0);
+			BRules.Memo.setMaxEntries(BRules.Memo.Routine.IS_PHONE_NUM, 0);
+			BRules.Metrics.setEnabled(false);
+			BRules.Metrics.reset();
+		}
+	}
+
+	@Test
+	public void lruCacheEvictsLeastRecentlyUsed() {
+		BRules.LruCache<String, Integer> cache = new BRules.LruCache<String, Integer>(2);
+		cache.put("a", 1);
+		cache.put("b", 2);
+		assertEquals( Integer.valueOf(1), cache.get("a") );
+		cache.put("c", 3);
+		assertNull( cache.get("b") );
+		assertEquals( Integer.valueOf(1), cache.get("a") );
+		assertEquals( Integer.valueOf(3), cache.get("c") );
+		assertEquals( 1L, cache.stats().evictions );
+		assertEquals( 2, cache.stats().size );
+	}
+	
+	@Test
+	public void matchesManyPatterns() {
+		for( int i=0; i<600; i++ ) {
+			assertTrue( BRules.matches("x" + i, "x" + i) );
+			assertTrue( BRules.matches("12345", "\\d{5}") );
+		}
+	}
+	
+	@Test
+	public void isDateManyPatterns() {
+		for( int i=0; i<600; i++ ) {
+			assertTrue( BRules.isDate("x" + i + " 2014-02-08", "'x" + i + "' yyyy-MM-dd") );
+			assertTrue( BRules.isDate("02/08/2014", "MM/dd/yyyy") );
+		}
+	}
 }